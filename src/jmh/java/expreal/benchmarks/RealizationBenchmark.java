@@ -0,0 +1,53 @@
+package expreal.benchmarks;
+
+import expreal.erElements.ERContext;
+import expreal.erElements.ERLanguage;
+import expreal.erElements.ERPredicate;
+import expreal.erRealizer.DiscourseSession;
+import expreal.erRealizer.ExpressiveActionRealizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput and latency of {@link ExpressiveActionRealizer#getTexts} for each language and template
+ * shape. Every invocation uses a new session, so that the mention history does not grow during the measurement.
+ * <p>
+ * Run with {@code -prof gc} to also measure the allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RealizationBenchmark {
+
+    @Param({"ENGLISH", "FRENCH", "DUTCH"})
+    public ERLanguage language;
+
+    @Param
+    public TemplateShape shape;
+
+    private ExpressiveActionRealizer realizer;
+    private ERPredicate predicate;
+    private ERContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        realizer = new ExpressiveActionRealizer("Tests.csv", language);
+        predicate = shape.createPredicate();
+        context = shape.createContext();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        realizer.close();
+    }
+
+    @Benchmark
+    public Vector<String> getTexts() {
+        return realizer.getTexts(predicate, context, new DiscourseSession());
+    }
+}
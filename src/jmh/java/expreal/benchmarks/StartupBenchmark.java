@@ -0,0 +1,55 @@
+package expreal.benchmarks;
+
+import expreal.erElements.ERLanguage;
+import expreal.erRealizer.ExpressiveActionRealizer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of creating an {@link ExpressiveActionRealizer} for each language: once with a lexicon that still
+ * has to be loaded, and once with a lexicon that is already in use by another realizer.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    @Param({"ENGLISH", "FRENCH", "DUTCH"})
+    public ERLanguage language;
+
+    @Benchmark
+    public ExpressiveActionRealizer constructor() {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", language);
+        realizer.close();
+        return realizer;
+    }
+
+    @Benchmark
+    public ExpressiveActionRealizer constructorWithLoadedLexicon(LoadedLexicon loadedLexicon) {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", language);
+        realizer.close();
+        return realizer;
+    }
+
+    /**
+     * Keeps a realizer of the language open, so that its lexicon stays loaded.
+     */
+    @State(Scope.Benchmark)
+    public static class LoadedLexicon {
+        private ExpressiveActionRealizer realizer;
+
+        @Setup(Level.Trial)
+        public void setUp(StartupBenchmark benchmark) {
+            realizer = new ExpressiveActionRealizer("Tests.csv", benchmark.language);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            realizer.close();
+        }
+    }
+}
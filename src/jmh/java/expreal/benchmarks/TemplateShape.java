@@ -0,0 +1,90 @@
+package expreal.benchmarks;
+
+import expreal.erElements.*;
+
+import java.util.HashMap;
+import java.util.Vector;
+
+/**
+ * The kinds of templates that are measured, each selected from Tests.csv by its $test argument.
+ */
+public enum TemplateShape {
+    /**
+     * Canned text, selected by a user-defined condition.
+     */
+    CANNED("userdefinedconditions1"),
+    /**
+     * $variables that expand to other entries, nested several layers deep.
+     */
+    DOLLAR_EXPANSION("nesteddynamicargument", "task", "SitOn", "argument", "Chair"),
+    /**
+     * A clause of grammatical blocks: {subject} {verb} {inf}.
+     */
+    CLAUSE("verbs-infinitive"),
+    /**
+     * A noun with an owner: friend &lt; %frank.
+     */
+    OWNER_NOUN("nounfeatures2"),
+    /**
+     * A reflexive verb, which needs a reflexive pronoun in Dutch and French.
+     */
+    REFLEXIVE_VERB("pronoun-reflexiveverb"),
+    /**
+     * French elision of 'de' before a vowel; canned text in the other languages.
+     */
+    FRENCH_ELISION("noun-elision", "task", "goSomewhere"),
+    /**
+     * A dialog of several lines, split by —.
+     */
+    DIALOG("switchdialog1"),
+    /**
+     * A condition on a property of a person: %john.contentedness &gt;= 0.8.
+     */
+    PROPERTY_CONDITION("nounfeatures10");
+
+    private final String test;
+    private final String[] arguments;
+
+    TemplateShape(String test, String... arguments) {
+        this.test = test;
+        this.arguments = arguments;
+    }
+
+    /**
+     * Create the predicate that selects the template of this shape.
+     *
+     * @return the predicate
+     */
+    public ERPredicate createPredicate() {
+        Vector<ERArgument> predicateArguments = new Vector<>();
+        predicateArguments.add(new ERArgument("test", test));
+        for (int i = 0; i < arguments.length; i += 2)
+            predicateArguments.add(new ERArgument(arguments[i], arguments[i + 1]));
+        return new ERPredicate("InformIntention", predicateArguments);
+    }
+
+    /**
+     * Create a context with the persons used in Tests.csv.
+     *
+     * @return the context
+     */
+    public ERContext createContext() {
+        ERContext context = new ERContext();
+        ERPerson julia = new ERPerson("julia", ERGender.FEMININE);
+        ERPerson frank = new ERPerson("frank", ERGender.MASCULINE);
+        context.addPerson(julia);
+        context.addPerson(frank);
+        context.addPerson(new ERPerson("paul", ERGender.MASCULINE));
+        context.addPerson(new ERPerson("lili", ERGender.FEMININE));
+        context.addPerson(new ERPerson("pete", ERGender.MASCULINE));
+
+        HashMap<String, Float> properties = new HashMap<>();
+        properties.put("contentedness", 0.9f);
+        context.addPerson(new ERPerson("john", ERGender.MASCULINE, null, properties));
+
+        context.addUserDefinedCondition("@userChoice", "true");
+        context.setSpeaker(julia);
+        context.setListener(frank);
+        return context;
+    }
+}
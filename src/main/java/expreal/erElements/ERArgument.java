@@ -1,6 +1,10 @@
 package expreal.erElements;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * Arguments are used to define $variables in the templates, for instance ERArgument("task", "haveADrink")
@@ -12,6 +16,11 @@ public class ERArgument extends ERObject {
     String value;
     HashMap<String, String> attributes;
 
+    /**
+     * The elements of a value of the form [a,b,c], parsed on first use.
+     */
+    volatile Set<String> valueSet;
+
     public ERArgument(String _name, String _value) {
         name = _name;
         value = _value;
@@ -26,6 +35,25 @@ public class ERArgument extends ERObject {
         return value;
     }
 
+    /**
+     * Get the elements of a value of the form [a,b,c], as used by 'contains' conditions. The value is parsed only
+     * once per argument.
+     *
+     * @return the elements, an empty set if the value is too short to be a list
+     */
+    public Set<String> getValueSet() {
+        Set<String> result = valueSet;
+        if (result == null) {
+            if (value == null || value.length() < 2)
+                result = Collections.emptySet();
+            else
+                result = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                        value.substring(1, value.length() - 1).split(","))));
+            valueSet = result;
+        }
+        return result;
+    }
+
     public void addAttribute(String name, String value) {
         attributes.put(name, value);
     }
@@ -5,8 +5,9 @@ import expreal.erRealizer.Condition;
 import org.tinylog.Logger;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The context contains all information that accompanies the predicate information.
@@ -17,18 +18,32 @@ import java.util.List;
  */
 public class ERContext {
 
+    /**
+     * The context this context is based on, or null. The parent is only read, so anything added to this context is
+     * not seen by the parent.
+     */
+    private final ERContext parent;
+
     /**
      * A list of all persons in this context, including the speaker, listener, etc.
+     * In a context with a parent, only the persons added to this context; null until the first one is added.
      */
     private List<ERPerson> persons;
 
     /**
      * The arguments, such as task names, which can be used as expandable variables or in conditions.
+     * In a context with a parent, only the arguments added to this context; null until the first one is added.
      */
     private List<ERArgument> arguments;
 
+    /**
+     * True if the arguments of the parent have been cleared in this context.
+     */
+    private boolean parentArgumentsCleared;
+
     /**
      * A list of @conditions, which the author can use in the texts file.
+     * In a context with a parent, only the conditions added to this context; null until the first one is added.
      */
     private List<Condition> userDefinedConditions;
 
@@ -37,32 +52,39 @@ public class ERContext {
      */
     private ERPerson speaker, listener;
 
+    /**
+     * Indexes of the persons, arguments and conditions added to this context. When several have the same key, the
+     * index keeps the first one, as a search through the lists would. Created together with the lists.
+     */
+    private Map<String, ERPerson> personsById, personsByRealisedName;
+    private Map<String, ERArgument> argumentsByName;
+    private Map<String, Condition> conditionsByKey;
+
     /**
      * Empty constructor.
      */
     public ERContext() {
+        parent = null;
         persons = new ArrayList<>();
+        personsById = new HashMap<>();
+        personsByRealisedName = new HashMap<>();
         arguments = new ArrayList<>();
+        argumentsByName = new HashMap<>();
         userDefinedConditions = new ArrayList<>();
+        conditionsByKey = new HashMap<>();
     }
 
     /**
-     * As a method of cloning, base this ERContext object on another ERContext object.
+     * Base this ERContext object on another ERContext object. The new context sees all persons, arguments and
+     * conditions of the old context, but the persons, arguments and conditions added to it and changes of its speaker
+     * and listener are not seen by the old context. Nothing is copied, so creating the context is cheap.
      *
      * @param oldContext the context on which to base the new one
      */
     public ERContext(ERContext oldContext) {
+        this.parent = oldContext;
         this.speaker = oldContext.speaker;
         this.listener = oldContext.listener;
-
-        this.persons = new ArrayList<>();
-        this.persons = oldContext.persons;
-
-        this.arguments = new ArrayList<>();
-        this.arguments = oldContext.arguments;
-
-        this.userDefinedConditions = new ArrayList<>();
-        this.userDefinedConditions = oldContext.userDefinedConditions;
     }
 
     /**
@@ -90,31 +112,54 @@ public class ERContext {
     /**
      * True if the person or argument with the key string exists in the current context.
      * Used for verifying conditions, which can contain both persons and arguments.
+     * A key of the form %personID.propertyName finds the person if it has the property.
      *
      * @param key the string to find
      * @return true if found, false if not
      */
     public ERObject getObjectByKey(String key) {
-        String[] keyParts = key.split("\\.");
-
-        for (ERPerson person : persons) {
-            if (keyParts.length > 1) {
-                if (keyParts[0].replace("%", "").equals(person.getId())) {
-                    if (person.hasProperty(keyParts[1]))
-                        return person;
-                }
-            } else {
-                if (key.equals(person.getId()))
-                    return person;
-            }
+        String personId = null;
+        String property = null;
+
+        int separatorIndex = key.indexOf('.');
+        if (separatorIndex != -1) {
+            int idStart = key.startsWith("%") ? 1 : 0;
+            int propertyEnd = key.indexOf('.', separatorIndex + 1);
+            personId = key.substring(idStart, separatorIndex);
+            property = key.substring(separatorIndex + 1, propertyEnd == -1 ? key.length() : propertyEnd);
         }
-        for (ERArgument argument : arguments) {
-            if (key.equals(argument.getName()))
-                return argument;
+        return getObjectByKey(key, personId, property);
+    }
+
+    /**
+     * Same as {@link #getObjectByKey(String)}, for a key of the form %personID.propertyName that has already been split.
+     *
+     * @param key      the string to find
+     * @param personId the id of the person, or null if the key does not have a property
+     * @param property the name of the property, or null if the key does not have a property
+     * @return true if found, false if not
+     */
+    public ERObject getObjectByKey(String key, String personId, String property) {
+        if (property != null) {
+            ERPerson person = getPerson(personId);
+            if (person != null && person.hasProperty(property))
+                return person;
+        } else {
+            ERPerson person = getPerson(key);
+            if (person != null)
+                return person;
         }
-        for (Condition userDefinedCondition : userDefinedConditions) {
-            if (key.equals(userDefinedCondition.getFirstOperand()))
-                return userDefinedCondition;
+
+        ERArgument argument = getArgument(key);
+        if (argument != null)
+            return argument;
+
+        for (ERContext frame = this; frame != null; frame = frame.parent) {
+            if (frame.conditionsByKey != null) {
+                Condition userDefinedCondition = frame.conditionsByKey.get(key);
+                if (userDefinedCondition != null)
+                    return userDefinedCondition;
+            }
         }
         return null;
     }
@@ -126,9 +171,12 @@ public class ERContext {
      * @return the person with the key as name
      */
     public ERPerson getPerson(String key) {
-        for (ERPerson person : this.persons) {
-            if (key.equals(person.getId()))
-                return person;
+        for (ERContext frame = this; frame != null; frame = frame.parent) {
+            if (frame.personsById != null) {
+                ERPerson person = frame.personsById.get(key);
+                if (person != null)
+                    return person;
+            }
         }
         return null;
     }
@@ -140,31 +188,67 @@ public class ERContext {
      * @return the person with the key as realised name
      */
     public ERPerson getPersonByRealisedName(String key) {
-        for (ERPerson person : this.persons) {
-            if (person.getRealisedNames() == null)
-                return null;
-
-            List<String> names = Arrays.asList(person.getRealisedNames());
-            if (names.contains(key))
-                return person;
+        for (ERContext frame = this; frame != null; frame = frame.parent) {
+            if (frame.personsByRealisedName != null) {
+                ERPerson person = frame.personsByRealisedName.get(key);
+                if (person != null)
+                    return person;
+            }
         }
         return null;
     }
 
     List<ERPerson> getAllPersons() {
-        return persons;
+        if (parent == null)
+            return persons;
+
+        List<ERPerson> allPersons = new ArrayList<>(parent.getAllPersons());
+        if (persons != null)
+            allPersons.addAll(persons);
+        return allPersons;
     }
 
+    /**
+     * Add a person to the context. The person is indexed by its id and realised names, which should not change
+     * afterwards.
+     *
+     * @param person the person to add
+     */
     public void addPerson(ERPerson person) {
+        if (persons == null) {
+            persons = new ArrayList<>();
+            personsById = new HashMap<>();
+            personsByRealisedName = new HashMap<>();
+        }
         persons.add(person);
+        personsById.putIfAbsent(person.getId(), person);
+        if (person.hasRealisedNames()) {
+            for (String realisedName : person.getRealisedNames()) {
+                if (realisedName != null)
+                    personsByRealisedName.putIfAbsent(realisedName, person);
+            }
+        }
     }
 
     public List<ERArgument> getAllArguments() {
-        return arguments;
+        if (parent == null)
+            return arguments;
+
+        List<ERArgument> allArguments = new ArrayList<>();
+        if (!parentArgumentsCleared)
+            allArguments.addAll(parent.getAllArguments());
+        if (arguments != null)
+            allArguments.addAll(arguments);
+        return allArguments;
     }
 
     public void addArgument(ERArgument argument) {
+        if (arguments == null) {
+            arguments = new ArrayList<>();
+            argumentsByName = new HashMap<>();
+        }
         arguments.add(argument);
+        argumentsByName.putIfAbsent(argument.getName(), argument);
     }
 
     /**
@@ -174,10 +258,14 @@ public class ERContext {
      * @return the argument with the key as name
      */
     public ERArgument getArgument(String key) {
-        for (ERArgument argument : this.arguments) {
-            if (key.equals(argument.getName())) {
-                return argument;
+        for (ERContext frame = this; frame != null; frame = frame.parent) {
+            if (frame.argumentsByName != null) {
+                ERArgument argument = frame.argumentsByName.get(key);
+                if (argument != null)
+                    return argument;
             }
+            if (frame.parentArgumentsCleared)
+                break;
         }
         return null;
     }
@@ -185,9 +273,13 @@ public class ERContext {
     /**
      * Clear the list of arguments.
      * Call this whenever you've used addArgument() on the same context, but in a different predicate.
+     * In a context with a parent, the arguments of the parent are hidden, but not removed from the parent.
      */
     public void clearArguments() {
         arguments = new ArrayList<>();
+        argumentsByName = new HashMap<>();
+        if (parent != null)
+            parentArgumentsCleared = true;
     }
 
     public ERPerson getSpeaker() {
@@ -207,18 +299,29 @@ public class ERContext {
     }
 
     public List<Condition> getUserDefinedConditions() {
-        return userDefinedConditions;
+        if (parent == null)
+            return userDefinedConditions;
+
+        List<Condition> allConditions = new ArrayList<>(parent.getUserDefinedConditions());
+        if (userDefinedConditions != null)
+            allConditions.addAll(userDefinedConditions);
+        return allConditions;
     }
 
     public void addUserDefinedCondition(String key, String value) {
         Condition condition = new Condition(key, Condition.OperatorType.EQUALITY, value);
+        if (this.userDefinedConditions == null) {
+            this.userDefinedConditions = new ArrayList<>();
+            this.conditionsByKey = new HashMap<>();
+        }
         this.userDefinedConditions.add(condition);
+        this.conditionsByKey.putIfAbsent(key, condition);
     }
 
     @Override
     public String toString() {
         return String.format("ERContext{speaker: %s, listener: %s, " +
                         "persons: %s, arguments: %s, userDefinedConditions: %s}",
-                speaker, listener, persons, arguments, userDefinedConditions);
+                speaker, listener, getAllPersons(), getAllArguments(), getUserDefinedConditions());
     }
 }
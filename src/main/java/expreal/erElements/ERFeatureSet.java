@@ -0,0 +1,146 @@
+package expreal.erElements;
+
+import simplenlg.features.Gender;
+import simplenlg.features.NumberAgreement;
+import simplenlg.features.Tense;
+
+/**
+ * The features appended to a word in a template (e.g. dog.plural or walk.past), decoded once so that they can be
+ * applied to a phrase element without splitting the string again.
+ * Instances are immutable and can be shared by all realisations of a template.
+ * When a string sets the same feature more than once, e.g. singular.plural, the last one is used.
+ */
+public final class ERFeatureSet {
+
+    /**
+     * The features of an empty string.
+     */
+    public static final ERFeatureSet NONE = new ERFeatureSet(null, null, null, false, false, false, false);
+
+    private final NumberAgreement number;
+    private final Gender gender;
+    private final Tense tense;
+    private final boolean past;
+    private final boolean capitalise;
+    private final boolean possessive;
+    private final boolean specifier;
+
+    private ERFeatureSet(NumberAgreement number, Gender gender, Tense tense, boolean past, boolean capitalise,
+                         boolean possessive, boolean specifier) {
+        this.number = number;
+        this.gender = gender;
+        this.tense = tense;
+        this.past = past;
+        this.capitalise = capitalise;
+        this.possessive = possessive;
+        this.specifier = specifier;
+    }
+
+    /**
+     * Decode the features of a word in a template. Unknown features are ignored.
+     *
+     * @param featureString the string of features, concatenated by dots
+     * @return the decoded features
+     */
+    public static ERFeatureSet parse(String featureString) {
+        if (featureString == null || featureString.isEmpty())
+            return NONE;
+
+        NumberAgreement number = null;
+        Gender gender = null;
+        Tense tense = null;
+        boolean past = false, capitalise = false, possessive = false, specifier = false;
+
+        for (String feature : featureString.split("\\.")) {
+            switch (feature) {
+                case "poss":
+                    possessive = true;
+                    break;
+                case "spec":
+                    specifier = true;
+                    break;
+                case "singular":
+                    number = NumberAgreement.SINGULAR;
+                    break;
+                case "plural":
+                    number = NumberAgreement.PLURAL;
+                    break;
+                case "masculine":
+                case "m":
+                    gender = Gender.MASCULINE;
+                    break;
+                case "feminine":
+                case "f":
+                    gender = Gender.FEMININE;
+                    break;
+                case "neuter":
+                case "n":
+                    gender = Gender.NEUTER;
+                    break;
+                case "common":
+                    gender = Gender.COMMON;
+                    break;
+                case "capitalise":
+                case "capitalize":
+                case "c":
+                    capitalise = true;
+                    break;
+                case "conditional":
+                case "cond":
+                    tense = Tense.CONDITIONAL;
+                    break;
+                case "past":
+                    tense = Tense.PAST;
+                    past = true;
+                    break;
+            }
+        }
+        return new ERFeatureSet(number, gender, tense, past, capitalise, possessive, specifier);
+    }
+
+    /**
+     * @return singular or plural, or null if not given
+     */
+    public NumberAgreement getNumber() {
+        return number;
+    }
+
+    /**
+     * @return the gender, or null if not given
+     */
+    public Gender getGender() {
+        return gender;
+    }
+
+    /**
+     * @return conditional or past, whichever was given last, or null if neither was given
+     */
+    public Tense getTense() {
+        return tense;
+    }
+
+    /**
+     * @return true if past was given, also when it was followed by conditional
+     */
+    public boolean isPast() {
+        return past;
+    }
+
+    public boolean isCapitalise() {
+        return capitalise;
+    }
+
+    public boolean isPossessive() {
+        return possessive;
+    }
+
+    public boolean isSpecifier() {
+        return specifier;
+    }
+
+    @Override
+    public String toString() {
+        return "ERFeatureSet{number: " + number + ", gender: " + gender + ", tense: " + tense + ", past: " + past
+                + ", capitalise: " + capitalise + ", possessive: " + possessive + ", specifier: " + specifier + "}";
+    }
+}
@@ -1,5 +1,7 @@
 package expreal.erElements;
 
+import java.util.function.IntSupplier;
+
 /**
  * Mentioned entities are used in generating referring expressions.
  * This class allows us to keep track of the entities and there distinguishing properties,
@@ -14,16 +16,42 @@ public class ERMentionedEntity {
     private String number;
     private int mentionDistance;
 
+    /**
+     * The number of sentences started so far, or null if the mention distance does not grow by itself.
+     * The mention distance grows by one for each sentence started after it was set, so that starting a sentence does
+     * not have to update every mentioned entity.
+     */
+    private final IntSupplier sentenceClock;
+    private int sentenceStamp;
+
     public ERMentionedEntity(String id, int mentionDistance) {
-        this.id = id;
-        this.name = id.split("<", 2)[0].replace("%", "");
-        this.mentionDistance = mentionDistance;
+        this(id, mentionDistance, null);
     }
 
     public ERMentionedEntity(String id, String name, int mentionDistance) {
+        this(id, name, mentionDistance, null);
+    }
+
+    /**
+     * @param id              the key of the entity
+     * @param mentionDistance the mention distance in the current sentence
+     * @param sentenceClock   the number of sentences started so far
+     */
+    public ERMentionedEntity(String id, int mentionDistance, IntSupplier sentenceClock) {
+        this(id, id.split("<", 2)[0].replace("%", ""), mentionDistance, sentenceClock);
+    }
+
+    /**
+     * @param id              the key of the entity
+     * @param name            the name of the entity
+     * @param mentionDistance the mention distance in the current sentence
+     * @param sentenceClock   the number of sentences started so far
+     */
+    public ERMentionedEntity(String id, String name, int mentionDistance, IntSupplier sentenceClock) {
         this.id = id;
         this.name = name;
-        this.mentionDistance = mentionDistance;
+        this.sentenceClock = sentenceClock;
+        setMentionDistance(mentionDistance);
     }
 
     public String getId() {
@@ -51,19 +79,23 @@ public class ERMentionedEntity {
     }
 
     public int getMentionDistance() {
-        return mentionDistance;
+        if (sentenceClock == null)
+            return mentionDistance;
+        return mentionDistance + (sentenceClock.getAsInt() - sentenceStamp);
     }
 
     public void setMentionDistance(int distance) {
         this.mentionDistance = distance;
+        if (sentenceClock != null)
+            this.sentenceStamp = sentenceClock.getAsInt();
     }
 
     public void incrementMentionDistance() {
-        this.mentionDistance++;
+        setMentionDistance(getMentionDistance() + 1);
     }
 
     public String toString() {
         return "ERMentionedEntity{ id: " + id + ", name: " + name + ", gender: " + gender
-                + ", number: " + number + ", mentionDistance: " + mentionDistance + " }";
+                + ", number: " + number + ", mentionDistance: " + getMentionDistance() + " }";
     }
 }
@@ -7,9 +7,6 @@ import simplenlg.phrasespec.NPPhraseSpec;
 import simplenlg.phrasespec.PPPhraseSpec;
 import simplenlg.phrasespec.SPhraseSpec;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * This class extends SimpleNLG-NL's NPPhraseSpec to help with building and populating a NPPhraseSpec as required by ExpReal.
  *
@@ -19,11 +16,21 @@ public class ERNounPhrase extends NPPhraseSpec implements ERPhraseElement {
     public boolean doCapitalise = false;
     private NLGFactory factory;
     private Lexicon lexicon;
+    private ERWordLookup wordLookup;
 
     public ERNounPhrase(NLGFactory factory, Lexicon lexicon) {
+        this(factory, new ERWordLookup(lexicon));
+    }
+
+    /**
+     * @param factory    the factory of the phrase
+     * @param wordLookup the lookup of the words in the lexicon, which can be shared by noun phrases
+     */
+    public ERNounPhrase(NLGFactory factory, ERWordLookup wordLookup) {
         super(factory);
         this.factory = factory;
-        this.lexicon = lexicon;
+        this.lexicon = wordLookup.getLexicon();
+        this.wordLookup = wordLookup;
     }
 
     /**
@@ -33,7 +40,8 @@ public class ERNounPhrase extends NPPhraseSpec implements ERPhraseElement {
      * @param personGender the gender of the new noun phrase
      */
     public void populateWith(String personName, Gender personGender) {
-        WordElement head = lexicon.getWord(personName, LexicalCategory.NOUN);
+        // The lexicon is shared, so its words are copied before changing their features
+        WordElement head = ERWordLookup.copyWord(lexicon.getWord(personName, LexicalCategory.NOUN));
         if (personGender != null)
             head.setFeature(LexicalFeature.GENDER, personGender);
         else if (!head.hasFeature(LexicalFeature.GENDER))
@@ -47,45 +55,25 @@ public class ERNounPhrase extends NPPhraseSpec implements ERPhraseElement {
      * @param featureString the source String
      */
     public void copyFeaturesFromString(String featureString) {
-        // Get required features from input string
-        String[] features = featureString.split("\\.");
+        copyFeatures(ERFeatureSet.parse(featureString));
+    }
 
-        for (String feature : features) {
-            switch (feature) {
-                case "poss":
-                    this.setFeature(Feature.POSSESSIVE, true);
-                    break;
-                case "spec":
-                    this.setFeature(InternalFeature.DISCOURSE_FUNCTION, DiscourseFunction.SPECIFIER);
-                    break;
-                case "singular":
-                    this.setFeature(Feature.NUMBER, NumberAgreement.SINGULAR);
-                    break;
-                case "plural":
-                    this.setFeature(Feature.NUMBER, NumberAgreement.PLURAL);
-                    break;
-                case "masculine":
-                case "m":
-                    this.setFeature(LexicalFeature.GENDER, Gender.MASCULINE);
-                    break;
-                case "feminine":
-                case "f":
-                    this.setFeature(LexicalFeature.GENDER, Gender.FEMININE);
-                    break;
-                case "neuter":
-                case "n":
-                    this.setFeature(LexicalFeature.GENDER, Gender.NEUTER);
-                    break;
-                case "common":
-                    this.setFeature(LexicalFeature.GENDER, Gender.COMMON);
-                    break;
-                case "capitalise":
-                case "capitalize":
-                case "c":
-                    this.doCapitalise = true;
-                    break;
-            }
-        }
+    /**
+     * Adds the features given in the input, decoded beforehand, to the NLGElement.
+     *
+     * @param features the decoded features
+     */
+    public void copyFeatures(ERFeatureSet features) {
+        if (features.isPossessive())
+            this.setFeature(Feature.POSSESSIVE, true);
+        if (features.isSpecifier())
+            this.setFeature(InternalFeature.DISCOURSE_FUNCTION, DiscourseFunction.SPECIFIER);
+        if (features.getNumber() != null)
+            this.setFeature(Feature.NUMBER, features.getNumber());
+        if (features.getGender() != null)
+            this.setFeature(LexicalFeature.GENDER, features.getGender());
+        if (features.isCapitalise())
+            this.doCapitalise = true;
     }
 
     /**
@@ -128,12 +116,9 @@ public class ERNounPhrase extends NPPhraseSpec implements ERPhraseElement {
                 // This replaces any determiner already present.
                 // Result: e.g. "mon meilleur ami"
 
-                Map<String, Object> possPronFeatures = new HashMap<>();
-                possPronFeatures.put(Feature.POSSESSIVE, true);
-                possPronFeatures.put(Feature.PERSON, ownerNounPhrase.getFeature(Feature.PERSON));
-
                 // Get determiner based on features and add more features
-                WordElement determiner = lexicon.getWord(LexicalCategory.DETERMINER, possPronFeatures);
+                WordElement determiner = ERWordLookup.copyWord(wordLookup.getPronounTable()
+                        .getPossessiveDeterminer(ownerNounPhrase.getFeature(Feature.PERSON)));
                 determiner.setFeature(Feature.NUMBER, ownerNounPhrase.getFeature(Feature.NUMBER));
                 determiner.setFeature(Feature.PERSON, ownerNounPhrase.getFeature(Feature.PERSON));
 
@@ -146,7 +131,7 @@ public class ERNounPhrase extends NPPhraseSpec implements ERPhraseElement {
                 this.setSpecifier(poss);
             } else {
                 // Result: e.g. "meilleur ami de Julia"
-                NLGElement ofPreposition = lexicon.getWordByID("E0043621");
+                NLGElement ofPreposition = ERWordLookup.copyWord(lexicon.getWordByID("E0043621"));
                 PPPhraseSpec pp = factory.createPrepositionPhrase(ofPreposition);
                 pp.setObject(ownerNounPhrase);
                 ownerNounPhrase.setFeature(Feature.POSSESSIVE, false);
@@ -156,7 +141,7 @@ public class ERNounPhrase extends NPPhraseSpec implements ERPhraseElement {
             if (this.getSpecifier() != null
                     && this.getSpecifier().isA(LexicalCategory.DETERMINER)) {
                 // Result: e.g. "the friend of Frank"
-                NLGElement ofPreposition = lexicon.getWordByID("E0043621");
+                NLGElement ofPreposition = ERWordLookup.copyWord(lexicon.getWordByID("E0043621"));
                 PPPhraseSpec pp = factory.createPrepositionPhrase(ofPreposition);
                 pp.setObject(ownerNounPhrase);
                 ownerNounPhrase.setFeature(Feature.POSSESSIVE, false);
@@ -173,10 +158,18 @@ public class ERNounPhrase extends NPPhraseSpec implements ERPhraseElement {
      * @param premodifierString the string of modifiers, to be split on whitespace
      */
     public void addPremodifiers(String premodifierString) {
-        for (String preMod : premodifierString.split(" ")) {
+        addPremodifiers(premodifierString.split(" "));
+    }
+
+    /**
+     * Add the premodifiers to the nounphrase.
+     *
+     * @param premodifiers the modifiers, empty strings are skipped
+     */
+    public void addPremodifiers(String[] premodifiers) {
+        for (String preMod : premodifiers) {
             if (!preMod.equals("")) {
-                if (lexicon.getWord(preMod).isA(LexicalCategory.DETERMINER)
-                        || lexicon.getWordFromVariant(preMod).isA(LexicalCategory.DETERMINER))
+                if (wordLookup.isDeterminer(preMod))
                     this.setSpecifier(preMod);
                 else
                     this.addPreModifier(preMod);
@@ -190,7 +183,16 @@ public class ERNounPhrase extends NPPhraseSpec implements ERPhraseElement {
      * @param postmodifierString the string of modifiers, to be split on whitespace
      */
     public void addPostmodifiers(String postmodifierString) {
-        for (String postMod : postmodifierString.split(" ")) {
+        addPostmodifiers(postmodifierString.split(" "));
+    }
+
+    /**
+     * Add the postmodifiers to the nounphrase.
+     *
+     * @param postmodifiers the modifiers, empty strings are skipped
+     */
+    public void addPostmodifiers(String[] postmodifiers) {
+        for (String postMod : postmodifiers) {
             if (!postMod.equals("")) {
                 this.addPostModifier(postMod);
             }
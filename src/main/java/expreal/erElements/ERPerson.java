@@ -120,6 +120,8 @@ public class ERPerson extends ERObject {
     }
 
     public Float getProperty(String key) {
+        if (this.properties == null)
+            return null;
         return this.properties.get(key);
     }
 
@@ -9,4 +9,6 @@ public interface ERPhraseElement {
 
     void copyFeaturesFromString(String featureString);
 
+    void copyFeatures(ERFeatureSet features);
+
 }
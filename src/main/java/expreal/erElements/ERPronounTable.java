@@ -0,0 +1,90 @@
+package expreal.erElements;
+
+import simplenlg.features.Feature;
+import simplenlg.features.LexicalFeature;
+import simplenlg.features.NumberAgreement;
+import simplenlg.features.Person;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.WordElement;
+import simplenlg.lexicon.Lexicon;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The reflexive pronouns and possessive determiners of a lexicon by person and number, looked up once so that
+ * realising a block reads them from a table instead of searching the lexicon by features.
+ * The words are those of the shared lexicon: they must be copied before their features are changed.
+ */
+public final class ERPronounTable {
+    private final Lexicon lexicon;
+
+    /**
+     * The reflexive pronouns by the ordinal of the person and the number.
+     */
+    private final WordElement[][] reflexivePronouns;
+
+    /**
+     * The possessive determiners by the ordinal of the person of the owner.
+     */
+    private final WordElement[] possessiveDeterminers;
+
+    /**
+     * Look up the pronouns of each person and number in a lexicon.
+     *
+     * @param lexicon the lexicon
+     */
+    public ERPronounTable(Lexicon lexicon) {
+        this.lexicon = lexicon;
+
+        Person[] persons = Person.values();
+        NumberAgreement[] numbers = NumberAgreement.values();
+        reflexivePronouns = new WordElement[persons.length][numbers.length];
+        possessiveDeterminers = new WordElement[persons.length];
+        for (Person person : persons) {
+            for (NumberAgreement number : numbers)
+                reflexivePronouns[person.ordinal()][number.ordinal()] = lookUpReflexivePronoun(person, number);
+            possessiveDeterminers[person.ordinal()] = lookUpPossessiveDeterminer(person);
+        }
+    }
+
+    /**
+     * Get the reflexive pronoun of a person and number, e.g. zich for the third person singular in Dutch.
+     *
+     * @param person the value of the person feature
+     * @param number the value of the number feature
+     * @return the pronoun, or null if the lexicon does not have it
+     */
+    public WordElement getReflexivePronoun(Object person, Object number) {
+        if (person instanceof Person && number instanceof NumberAgreement)
+            return reflexivePronouns[((Person) person).ordinal()][((NumberAgreement) number).ordinal()];
+        return lookUpReflexivePronoun(person, number);
+    }
+
+    /**
+     * Get the possessive determiner of an owner, e.g. mon for the first person in French.
+     *
+     * @param person the value of the person feature of the owner
+     * @return the determiner, or null if the lexicon does not have it
+     */
+    public WordElement getPossessiveDeterminer(Object person) {
+        if (person instanceof Person)
+            return possessiveDeterminers[((Person) person).ordinal()];
+        return lookUpPossessiveDeterminer(person);
+    }
+
+    private WordElement lookUpReflexivePronoun(Object person, Object number) {
+        Map<String, Object> pronounFeatures = new HashMap<>();
+        pronounFeatures.put(Feature.NUMBER, number);
+        pronounFeatures.put(Feature.PERSON, person);
+        pronounFeatures.put(LexicalFeature.REFLEXIVE, true);
+        return lexicon.getWord(LexicalCategory.PRONOUN, pronounFeatures);
+    }
+
+    private WordElement lookUpPossessiveDeterminer(Object person) {
+        Map<String, Object> possPronFeatures = new HashMap<>();
+        possPronFeatures.put(Feature.POSSESSIVE, true);
+        possPronFeatures.put(Feature.PERSON, person);
+        return lexicon.getWord(LexicalCategory.DETERMINER, possPronFeatures);
+    }
+}
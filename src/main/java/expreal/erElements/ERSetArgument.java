@@ -0,0 +1,18 @@
+package expreal.erElements;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+/**
+ * An argument with a set of values, for instance ERSetArgument("inventory", Arrays.asList("key", "lamp")), to be used
+ * in conditions such as '$inventory contains key'. The value of the argument is the list of values in the form
+ * [key,lamp], so it can be used like any other argument.
+ */
+public class ERSetArgument extends ERArgument {
+
+    public ERSetArgument(String _name, Collection<String> _values) {
+        super(_name, "[" + String.join(",", _values) + "]");
+        valueSet = Collections.unmodifiableSet(new LinkedHashSet<>(_values));
+    }
+}
@@ -30,49 +30,27 @@ public class ERVerbPhrase extends VPPhraseSpec implements ERPhraseElement {
      */
     @Override
     public void copyFeaturesFromString(String featureString) {
-        // Get required features from input string
-        String[] features = featureString.split("\\.");
+        copyFeatures(ERFeatureSet.parse(featureString));
+    }
 
-        for (String feature : features) {
-            switch (feature) {
-                case "singular":
-                    this.setFeature(Feature.NUMBER, NumberAgreement.SINGULAR);
-                    break;
-                case "plural":
-                    this.setFeature(Feature.NUMBER, NumberAgreement.PLURAL);
-                    break;
-                case "masculine":
-                case "m":
-                    this.setFeature(LexicalFeature.GENDER, Gender.MASCULINE);
-                    break;
-                case "feminine":
-                case "f":
-                    this.setFeature(LexicalFeature.GENDER, Gender.FEMININE);
-                    break;
-                case "neuter":
-                case "n":
-                    this.setFeature(LexicalFeature.GENDER, Gender.NEUTER);
-                    break;
-                case "common":
-                    this.setFeature(LexicalFeature.GENDER, Gender.COMMON);
-                    break;
-                case "capitalise":
-                case "capitalize":
-                case "c":
-                    this.doCapitalise = true;
-                    break;
-                case "conditional":
-                case "cond":
-                    parentPhrase.setFeature(Feature.TENSE, Tense.CONDITIONAL);
-                    break;
-                case "past":
-                    parentPhrase.setFeature(Feature.TENSE, Tense.PAST);
+    /**
+     * Set the features appended to a word in the template, decoded beforehand.
+     *
+     * @param features the decoded features
+     */
+    @Override
+    public void copyFeatures(ERFeatureSet features) {
+        if (features.getNumber() != null)
+            this.setFeature(Feature.NUMBER, features.getNumber());
+        if (features.getGender() != null)
+            this.setFeature(LexicalFeature.GENDER, features.getGender());
+        if (features.isCapitalise())
+            this.doCapitalise = true;
 
-                    if (factory.getLanguage() == Language.FRENCH)
-                        // Past + progressive makes imparfait
-                        parentPhrase.setFeature(Feature.PROGRESSIVE, true);
-                    break;
-            }
-        }
+        if (features.isPast() && factory.getLanguage() == Language.FRENCH)
+            // Past + progressive makes imparfait
+            parentPhrase.setFeature(Feature.PROGRESSIVE, true);
+        if (features.getTense() != null)
+            parentPhrase.setFeature(Feature.TENSE, features.getTense());
     }
 }
@@ -0,0 +1,148 @@
+package expreal.erElements;
+
+import simplenlg.features.LexicalFeature;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.WordElement;
+import simplenlg.lexicon.Lexicon;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers what the words of the templates are in a lexicon, so that realising a grammatical block looks each word up
+ * once in a hash map instead of searching the lexicon several times. Safe to share between the realizers and threads
+ * that use the same lexicon.
+ * <p>
+ * Only words found in the lexicon are remembered. A word that is not in the lexicon is created by the lexicon on every
+ * lookup, as before, so that realisations do not share it.
+ */
+public final class ERWordLookup {
+
+    /**
+     * Upper bound on the number of words that are remembered in each map, as blocks can contain words from the
+     * context (e.g. $variables) that are not in the templates.
+     */
+    private static final int MAX_REMEMBERED_WORDS = 10000;
+
+    private final Lexicon lexicon;
+    private final ConcurrentHashMap<String, VerbWord> verbWords = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Boolean> determiners = new ConcurrentHashMap<>();
+    private volatile ERPronounTable pronounTable;
+
+    public ERWordLookup(Lexicon lexicon) {
+        this.lexicon = lexicon;
+    }
+
+    public Lexicon getLexicon() {
+        return lexicon;
+    }
+
+    /**
+     * @param token a word of a verb block
+     * @return the reflexive pronoun, or null if the word is not a reflexive pronoun
+     */
+    public WordElement getReflexivePronoun(String token) {
+        return getVerbWord(token).reflexivePronoun;
+    }
+
+    /**
+     * @param token a word of a verb block
+     * @return the verb with the word as base form, created by the lexicon if it does not have it
+     */
+    public WordElement getVerb(String token) {
+        WordElement verb = getVerbWord(token).verb;
+        return verb != null ? verb : lexicon.getWord(token, LexicalCategory.VERB);
+    }
+
+    /**
+     * @param token a word of a verb block
+     * @return true if the word is a form of a verb in the lexicon
+     */
+    public boolean hasVerbFromVariant(String token) {
+        return getVerbWord(token).isVerbVariant;
+    }
+
+    /**
+     * @param token a modifier of a noun
+     * @return true if the word, or the word of which it is a form, is a determiner
+     */
+    public boolean isDeterminer(String token) {
+        Boolean determiner = determiners.get(token);
+        if (determiner == null) {
+            determiner = lexicon.getWord(token).isA(LexicalCategory.DETERMINER)
+                    || lexicon.getWordFromVariant(token).isA(LexicalCategory.DETERMINER);
+            if (determiners.size() < MAX_REMEMBERED_WORDS)
+                determiners.put(token, determiner);
+        }
+        return determiner;
+    }
+
+    /**
+     * Create a copy of a word from the lexicon. The lexicon and its words are shared by all realizers and threads, so
+     * a word must be copied before it is put in a phrase, which sets its parent, or before its features are changed.
+     *
+     * @param word the word from the lexicon, or null
+     * @return a word with the same base form, category, id and features, or null if the word is null
+     */
+    public static WordElement copyWord(WordElement word) {
+        if (word == null)
+            return null;
+        WordElement copy = new WordElement(word.getBaseForm(), (LexicalCategory) word.getCategory(), word.getId());
+        for (String featureName : word.getAllFeatureNames())
+            copy.setFeature(featureName, word.getFeature(featureName));
+        return copy;
+    }
+
+    /**
+     * @return the pronouns of the lexicon, looked up on first use
+     */
+    public ERPronounTable getPronounTable() {
+        ERPronounTable table = pronounTable;
+        if (table == null) {
+            synchronized (this) {
+                table = pronounTable;
+                if (table == null)
+                    pronounTable = table = new ERPronounTable(lexicon);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Remove the remembered words, e.g. after words have been added to the lexicon.
+     */
+    public void clear() {
+        verbWords.clear();
+        determiners.clear();
+        pronounTable = null;
+    }
+
+    private VerbWord getVerbWord(String token) {
+        VerbWord verbWord = verbWords.get(token);
+        if (verbWord == null) {
+            verbWord = new VerbWord(lexicon, token);
+            if (verbWords.size() < MAX_REMEMBERED_WORDS)
+                verbWords.put(token, verbWord);
+        }
+        return verbWord;
+    }
+
+    /**
+     * What a word of a verb block is in the lexicon.
+     */
+    private static final class VerbWord {
+        final WordElement reflexivePronoun;
+
+        /**
+         * The verb, or null if the lexicon does not have a verb with the word as base form.
+         */
+        final WordElement verb;
+        final boolean isVerbVariant;
+
+        VerbWord(Lexicon lexicon, String token) {
+            WordElement pronoun = lexicon.getWord(token, LexicalCategory.PRONOUN);
+            reflexivePronoun = pronoun != null && pronoun.hasFeature(LexicalFeature.REFLEXIVE) ? pronoun : null;
+            verb = lexicon.hasWord(token, LexicalCategory.VERB) ? lexicon.getWord(token, LexicalCategory.VERB) : null;
+            isVerbVariant = lexicon.hasWordFromVariant(token, LexicalCategory.VERB);
+        }
+    }
+}
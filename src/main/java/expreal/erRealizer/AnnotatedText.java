@@ -3,8 +3,6 @@ package expreal.erRealizer;
 import expreal.erElements.*;
 import org.tinylog.Logger;
 
-import java.util.Map;
-import java.util.Random;
 import java.util.Vector;
 
 /**
@@ -12,16 +10,12 @@ import java.util.Vector;
  * It selects the most appropriate template and processes it.
  */
 public class AnnotatedText {
-    private static Random randomGenerator;
     private final ExpressiveActionRealizer expressiveActionRealizer;
-    ReferringExpressionGenerator refExpGen;
     private AuthoredTemplatesCollection authoredTemplatesCollection;
 
 
     public AnnotatedText(ExpressiveActionRealizer expressiveActionRealizer) {
         this.expressiveActionRealizer = expressiveActionRealizer;
-        this.refExpGen = expressiveActionRealizer.getRefExpGen();
-        randomGenerator = new Random();
     }
 
     public void setAuthoredTemplatesCollection(AuthoredTemplatesCollection authoredTemplatesCollection) {
@@ -33,28 +27,44 @@ public class AnnotatedText {
      *
      * @param element      element to be expressed
      * @param localContext context built while generating a natural language sentence
+     * @param session      the session of which the random generator picks between equally suitable texts
      * @return an annotated text.
      */
-    String selectAnnotatedText(String element, ERContext localContext) {
+    String selectAnnotatedText(String element, ERContext localContext, DiscourseSession session) {
+        CompiledTemplate template = selectTemplate(element, localContext, session);
+        return template == null ? "" : template.getSource();
+    }
+
+    /**
+     * Chooses between the different ways to express a given element and returns the compiled template.
+     *
+     * @param element      element to be expressed
+     * @param localContext context built while generating a natural language sentence
+     * @param session      the session of which the random generator picks between equally suitable texts
+     * @return the compiled template, or null if no text was found
+     */
+    CompiledTemplate selectTemplate(String element, ERContext localContext, DiscourseSession session) {
 
         // Retrieve realised name if applicable
         ERPerson person = localContext.getPerson(element);
         if (person != null && person.hasRealisedNames()) {
-            return getRealisedNameForPerson(person);
+            return getCompiledTemplate(getRealisedNameForPerson(person));
         }
 
         /* retrieval of all texts corresponding to the element */
         if (authoredTemplatesCollection == null)
-            return "";
+            return null;
 
-        Vector<ConditionalAnnotatedText> condTexts = authoredTemplatesCollection.getConditionalAnnotatedTexts(element);
-        if (condTexts == null) {
+        TemplateIndex templateIndex = authoredTemplatesCollection.getTemplateIndex(element);
+        if (templateIndex == null) {
             Logger.tag("AT").error("No text found for element: '{}'", element);
-            return "";
+            return null;
         }
-        Logger.tag("AT").debug("All (unverified) conditional annotated texts: {}", condTexts);
+        Vector<ConditionalAnnotatedText> condTexts = templateIndex.getConditionalTexts();
+
+        Vector<ConditionalAnnotatedText> filteredCondTexts = templateIndex.getVerifiedTexts(localContext);
+        Logger.tag("AT").debug("Verified conditional annotated texts: {}", filteredCondTexts);
 
-        Vector<ConditionalAnnotatedText> filteredCondTexts = getVerifiedConditionalTexts(condTexts, localContext);
         Vector<ConditionalAnnotatedText> specificCondTexts = getMostSpecificTexts(filteredCondTexts);
 
         if (specificCondTexts.isEmpty()) {
@@ -62,13 +72,25 @@ public class AnnotatedText {
                     + "\nConditional texts: {}"
                     + "\nFiltered conditional texts: {}"
                     + "\nElement from which cond. text is extracted: {}" + element, condTexts, filteredCondTexts, element);
-            return "";
+            return null;
         }
 
-        int index = randomGenerator.nextInt(specificCondTexts.size());
+        int index = specificCondTexts.size() == 1 ? 0 : session.nextVariant(specificCondTexts.size());
         ConditionalAnnotatedText selectedCAT = specificCondTexts.get(index);
 
-        return selectedCAT.getAnnotatedText();
+        return selectedCAT.getCompiledTemplate();
+    }
+
+    /**
+     * Get the compiled form of a text, reusing the compiled templates of the authored templates collection.
+     *
+     * @param text the annotated text
+     * @return the compiled template
+     */
+    private CompiledTemplate getCompiledTemplate(String text) {
+        if (authoredTemplatesCollection == null)
+            return CompiledTemplate.compile(text);
+        return authoredTemplatesCollection.getCompiledTemplate(text);
     }
 
     private String getRealisedNameForPerson(ERPerson person) {
@@ -78,25 +100,6 @@ public class AnnotatedText {
     }
 
 
-    /**
-     * Filter conditional texts based on whether their conditions are met.
-     *
-     * @param localContext the local context
-     * @param condTexts    the conditional texts
-     * @return conditional texts of which the conditions are verified to be met
-     */
-    private Vector<ConditionalAnnotatedText> getVerifiedConditionalTexts(Vector<ConditionalAnnotatedText> condTexts, ERContext localContext) {
-        Vector<ConditionalAnnotatedText> filteredCondTexts = new Vector<>();
-
-        for (ConditionalAnnotatedText currentCat : condTexts) {
-            if (currentCat.verifiedCondition(localContext))
-                filteredCondTexts.add(currentCat);
-        }
-
-        Logger.tag("AT").debug("Verified conditional annotated texts: {}", filteredCondTexts);
-        return filteredCondTexts;
-    }
-
     /**
      * Filter out less specific text, to return the most specific one.
      *
@@ -137,19 +140,52 @@ public class AnnotatedText {
 
 
     /**
-     * Transforms an annotated text, with only one utterance (text between —), into a text
+     * Transforms an annotated text, with only one utterance (text between —), into a text.
+     * Uses the default session of the realizer.
      *
      * @param annotatedText the annotated text to transform
      * @param context       the context
      * @return a NLG text
      */
     public String interpret(String annotatedText, ERContext context) {
+        DiscourseSession session = expressiveActionRealizer.getDefaultSession();
+        synchronized (session) {
+            return interpret(annotatedText, context, session);
+        }
+    }
 
-        String newString = annotatedText;
+    /**
+     * Transforms an annotated text, with only one utterance (text between —), into a text
+     *
+     * @param annotatedText the annotated text to transform
+     * @param context       the context
+     * @param session       the session with the mention history
+     * @return a NLG text
+     */
+    String interpret(String annotatedText, ERContext context, DiscourseSession session) {
+        return interpret(getCompiledTemplate(annotatedText).getWholeText(), context, session);
+    }
+
+    /**
+     * Transforms a compiled utterance into a text.
+     *
+     * @param utterance the compiled utterance to transform
+     * @param context   the context
+     * @param session   the session with the mention history
+     * @return a NLG text
+     */
+    String interpret(CompiledTemplate.Utterance utterance, ERContext context, DiscourseSession session) {
+
+        /* Utterances of which the output does not depend on the context have been realised while loading */
+        LiteralText literalText = utterance.getLiteralText();
+        if (literalText != null && !literalText.isShadowed(context)) {
+            literalText.updateMentionDistances(session.getRefExpGen());
+            return literalText.getText();
+        }
 
         /* Parsing of #switchDialog */
-        if (newString.startsWith(ERconstants.switchDialog)) {
-            newString = doSwitchDialog(context, newString);
+        if (utterance.isSwitchDialog()) {
+            doSwitchDialog(context);
         }
 
         /* Parsing of each new variable string starting with a $:
@@ -158,50 +194,64 @@ public class AnnotatedText {
          * $XXX is a predicate''s argument. YYY is the instantiated value of the argument, with spaces replaced by underscores
          * (NB: In practice, we finally avoided the use of spaces in game's elements)
          */
-        newString = expandDollarVariables(context, newString);
+        CompiledText compiledText = utterance.getCompiledText();
+        if (compiledText == null) {
+            String newString = expandDollarVariables(context, utterance.getText(), session);
+            compiledText = getCompiledExpandedText(newString);
+        }
 
         /* Grammatical processing of {} blocks */
-        String result = newString;
-
-        if (result.contains("{")) {
+        String result = compiledText.getText();
 
-            //First step: pseudo-clause isolation
-            String[] sentences = splitSentences(newString);
+        if (compiledText.hasGrammaticalBlocks()) {
+            CompiledClause[][] compiledSentences = compiledText.getSentences();
+            String[] sentences = new String[compiledSentences.length];
 
             // Interpret all sentences
-            for (int i = 0; i < sentences.length; i++) {
-                sentences[i] = interpretSentence(context, sentences[i]);
+            for (int i = 0; i < compiledSentences.length; i++) {
+                sentences[i] = interpretSentence(context, compiledSentences[i], session);
             }
 
             result = String.join(" ", sentences);
         }
 
         /* Recursive replacement of variables: %XXX -> plain text */
-        result = percentageVariablesToPlainText(context, result, false);
+        result = percentageVariablesToPlainText(context, result, false, session);
 
         return result;
     }
 
+    /**
+     * Get the compiled form of an utterance after expanding its $variables.
+     *
+     * @param expandedText the text with expanded $variables
+     * @return the compiled text
+     */
+    private CompiledText getCompiledExpandedText(String expandedText) {
+        if (authoredTemplatesCollection == null)
+            return CompiledText.compile(expandedText);
+        return authoredTemplatesCollection.getCompiledExpandedText(expandedText);
+    }
+
     /**
      * Realises the grammatical parts of a sentence. It can still include %variables.
      * The sentence can contain subclauses, which will be realised individually.
      *
-     * @param context  the current context
-     * @param sentence the sentence to realise
+     * @param context    the current context
+     * @param subclauses the compiled subclauses of the sentence to realise
+     * @param session    the session with the mention history
      * @return the realised sentence
      */
-    private String interpretSentence(ERContext context, String sentence) {
-        // Increment mention distance for each mentioned entity. This can be reset when new mentions are detected.
-        for (Map.Entry<String, ERMentionedEntity> entry : refExpGen.mentionDistances.entrySet()) {
-            refExpGen.updateMentionDistance(entry.getKey());
-        }
+    private String interpretSentence(ERContext context, CompiledClause[] subclauses, DiscourseSession session) {
+        session.markHistoryDependent();
 
-        // Split sentences into subclauses if needed
-        String[] subclauses = splitSubclauses(sentence);
+        // Increment mention distance for each mentioned entity. This can be reset when new mentions are detected.
+        session.getRefExpGen().startSentence();
 
         StringBuilder realisedSubclauses = new StringBuilder();
-        for (String subclause : subclauses) {
-            realisedSubclauses.append(expressiveActionRealizer.interpretGrammaticalClause(subclause, context));
+        for (CompiledClause subclause : subclauses) {
+            session.checkCancelled();
+            realisedSubclauses.append(expressiveActionRealizer.interpretGrammaticalClause(subclause, context, session));
         }
         return realisedSubclauses.toString();
     }
@@ -210,44 +260,11 @@ public class AnnotatedText {
      * Swaps the speaker and the listener.
      *
      * @param context the current context
-     * @param text    the current string in which to swap
-     * @return text with $speaker and $listener swapped
      */
-    private String doSwitchDialog(ERContext context, String text) {
+    private void doSwitchDialog(ERContext context) {
+        ERPerson speaker = context.getSpeaker();
         context.setSpeaker(context.getListener());
-        context.setListener(context.getSpeaker());
-
-        return text.substring(ERconstants.switchDialog.length());
-    }
-
-    /**
-     * Splits a string into sentences.
-     *
-     * @param fullDialogString the dialog with possibly multiple sentences
-     * @return one or more sentences
-     */
-    private String[] splitSentences(String fullDialogString) {
-        String sentenceSplitRegExp = "(?<!\\w\\.\\w.)" // adapted from https://regex101.com/r/nG1gU7/27
-                + "(?<![A-Z][a-z]\\.)"
-                + "(?<=[.?])\\s";
-
-        return fullDialogString.split(sentenceSplitRegExp);
-    }
-
-    /**
-     * Splits a sentence into subclauses.
-     *
-     * @param sentence the sentence to split
-     * @return the subclauses that form the sentence
-     */
-    private String[] splitSubclauses(String sentence) {
-        String[] subclauses = sentence.split("(\\|)(?=[^}]*(\\{|$))"); // a | with a grammatical block to its right
-
-        if (subclauses.length == 1)
-            subclauses = sentence.split("(?=\\{#? ?subject ?:)");
-        if (subclauses.length > 1)
-            Logger.tag("AT").debug("Multiple subclauses detected: {}", subclauses.length);
-        return subclauses;
+        context.setListener(speaker);
     }
 
     /**
@@ -255,21 +272,22 @@ public class AnnotatedText {
      *
      * @param context   the context with which to validate the variable's existence
      * @param newString the string in which the variables will be replaced
+     * @param session   the session with the mention history
      * @return the new string with $variablenames having been replaced by %variablenames
      */
-    private String expandDollarVariables(ERContext context, String newString) {
+    private String expandDollarVariables(ERContext context, String newString, DiscourseSession session) {
         int index = newString.indexOf("$");
 
         while (index > -1) {
 
 
             // Determine the length of the variable
-            String textVariable = getTextVariable(newString, index + 1);
+            String textVariable = Tools.getTextVariable(newString, index + 1);
             ERObject contextObject = getObjectFromContext(context, textVariable);
 
             if (contextObject == null) {
                 // Variable not found in context. Let's try it as a %variable.
-                newString = percentageVariablesToPlainText(context, newString.replace("$", "%"), true);
+                newString = percentageVariablesToPlainText(context, newString.replace("$", "%"), true, session);
             } else {
                 // Build the replacement string based on the context variable,
                 // replace whitespace with underscores,
@@ -282,11 +300,11 @@ public class AnnotatedText {
                     // which will be realised later.
                     newString = newString.replace("$" + textVariable, "%" + replacementString);
                 } else {
-                    refExpGen.updateMentionDistance(replacementString);
+                    session.getRefExpGen().updateMentionDistance(replacementString);
 
-                    String at = this.selectAnnotatedText(replacementString, context);
+                    String at = this.selectAnnotatedText(replacementString, context, session);
 
-                    replacementString = expandAnnotatedText(context, replacementString, at);
+                    replacementString = expandAnnotatedText(context, replacementString, at, session);
 
                     String targetString;
                     if (newString.substring(0, index).endsWith(" de ")
@@ -315,16 +333,16 @@ public class AnnotatedText {
         return newString;
     }
 
-    private String expandAnnotatedText(ERContext context, String replacementString, String at) {
+    private String expandAnnotatedText(ERContext context, String replacementString, String at, DiscourseSession session) {
         String result = replacementString;
         if (!at.equals("")) {
             if (at.contains("$")) {
                 if (at.contains("$argument")
                         || at.contains("$speaker")
                         || at.contains("$listener")) {
-                    at = expandDollarVariables(context, at);
+                    at = expandDollarVariables(context, at, session);
                 } else {
-                    at = percentageVariablesToPlainText(context, at.replace("$", "%"), false);
+                    at = percentageVariablesToPlainText(context, at.replace("$", "%"), false, session);
                 }
             }
             result = at;
@@ -346,15 +364,6 @@ public class AnnotatedText {
         return instantiatedValue;
     }
 
-    private String getTextVariable(String rawString, int startIndex) {
-        int endOfWordIndex = Tools.indexOf(rawString, ERconstants.textVariableSeparators, startIndex);
-
-        if (endOfWordIndex == -1) //special case when the variable is at the end of the string
-            endOfWordIndex = rawString.length();
-
-        return rawString.substring(startIndex, endOfWordIndex);
-    }
-
     private String getReplacementStringFromObject(ERObject object) {
         if (object instanceof ERPerson)
             return ((ERPerson) object).getId();
@@ -368,9 +377,10 @@ public class AnnotatedText {
      * @param context             the context from which to get the replacement names
      * @param newString2          the string in which the variables will be replaced
      * @param doAddFeatureStrings only add feature strings if they will be processed afterwards
+     * @param session             the session with the mention history
      * @return the new, plain text string
      */
-    private String percentageVariablesToPlainText(ERContext context, String newString2, boolean doAddFeatureStrings) {
+    private String percentageVariablesToPlainText(ERContext context, String newString2, boolean doAddFeatureStrings, DiscourseSession session) {
         int currentVariablePrefixIndex;
         int currentIndex = 0;
 
@@ -378,7 +388,7 @@ public class AnnotatedText {
             currentVariablePrefixIndex = newString2.indexOf(ERconstants.variablePrefix, currentIndex);
 
             if (currentVariablePrefixIndex != -1) {
-                String currentVariableString = getTextVariable(newString2, currentVariablePrefixIndex + 1);
+                String currentVariableString = Tools.getTextVariable(newString2, currentVariablePrefixIndex + 1);
 
                 if (currentVariableString.equals("")) {
                     Logger.tag("AT").error("Variable is empty in text: {}", this);
@@ -387,11 +397,11 @@ public class AnnotatedText {
 
                 String at;
                 if (currentVariableString.equals("speaker")) {
-                    at = this.selectAnnotatedText(context.getSpeaker().getId(), context);
+                    at = this.selectAnnotatedText(context.getSpeaker().getId(), context, session);
                     if (doAddFeatureStrings)
                         at += context.getSpeaker().getGender() == ERGender.FEMININE ? ".f" : ".m";
                 } else if (currentVariableString.equals("listener")) {
-                    at = this.selectAnnotatedText(context.getListener().getId(), context);
+                    at = this.selectAnnotatedText(context.getListener().getId(), context, session);
                     if (doAddFeatureStrings)
                         at += context.getListener().getGender() == ERGender.FEMININE ? ".f" : ".m";
                 } else if (context.getPersonByRealisedName(currentVariableString) != null) {
@@ -401,20 +411,20 @@ public class AnnotatedText {
                         at += context.getPersonByRealisedName(currentVariableString).getGender() == ERGender.FEMININE ? ".f" : ".m";
                 } else if (context.getArgument(currentVariableString) != null) {
                     String argumentValue = context.getArgument(currentVariableString).getValue();
-                    at = this.selectAnnotatedText(argumentValue, context);
+                    at = this.selectAnnotatedText(argumentValue, context, session);
                 } else {
-                    at = this.selectAnnotatedText(currentVariableString, context); // recursive call
+                    at = this.selectAnnotatedText(currentVariableString, context, session); // recursive call
                 }
 
                 String replacement;
                 if (at.equals("")) {
                     replacement = currentVariableString;
                 } else {
-                    replacement = this.interpret(at, context);
+                    replacement = this.interpret(at, context, session);
                     newString2 = newString2.replace(ERconstants.variablePrefix + currentVariableString, replacement);
                 }
                 currentIndex = currentVariablePrefixIndex + replacement.length();
-                refExpGen.updateMentionDistance(currentVariableString);
+                session.getRefExpGen().updateMentionDistance(currentVariableString);
             }
         } while (currentVariablePrefixIndex != -1);
 
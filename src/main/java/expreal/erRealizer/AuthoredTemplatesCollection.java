@@ -5,8 +5,8 @@ import org.tinylog.Logger;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
-import java.util.Hashtable;
-import java.util.Vector;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * AuthoredTemplates is a collection of texts as written by authors in the CSV file.
@@ -20,6 +20,31 @@ public class AuthoredTemplatesCollection {
     //This hash table contains, for a given predicate (or type, or narrative act), all possible "conditional texts" — each containing a condition and a sentence.
     Hashtable<String, Vector<ConditionalAnnotatedText>> textData;
 
+    //For each entry, an index of its conditional texts on their equality conditions.
+    private Hashtable<String, TemplateIndex> templateIndexes = new Hashtable<>();
+
+    //For each entry, the values of the context its output depends on, following references to other entries.
+    private Hashtable<String, TemplateDependencies> entryDependencies = new Hashtable<>();
+
+    //The dependencies of each template, computed when the entries are read or when another text is first realised.
+    private Map<CompiledTemplate, TemplateDependencies> templateDependencies = new ConcurrentHashMap<>();
+
+    /**
+     * Upper bound on the number of texts compiled at realisation time (e.g. after expanding $variables) that are kept.
+     */
+    private static final int MAX_CACHED_COMPILED_TEXTS = 10000;
+
+    /**
+     * Compiled templates by their annotated text, so that templates expanded inside other templates (%variables) do not
+     * need to be parsed again. Also holds other texts that are interpreted, such as realised names.
+     */
+    private final Map<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<>();
+
+    /**
+     * Compiled texts of utterances of which the $variables have been expanded.
+     */
+    private final Map<String, CompiledText> compiledExpandedTexts = new ConcurrentHashMap<>();
+
 
     /**
      * Constructor.
@@ -103,6 +128,7 @@ public class AuthoredTemplatesCollection {
                     }
 
                     currentValue = new ConditionalAnnotatedText(columns[1], annotatedText);
+                    compiledTemplates.put(annotatedText, currentValue.getCompiledTemplate());
 
                     Vector<ConditionalAnnotatedText> condTexts = textData.get(currentKey);
                     if (condTexts == null) {
@@ -117,6 +143,87 @@ public class AuthoredTemplatesCollection {
         } catch (IOException e) {
             Logger.tag("ATC").error("Could not read authored texts file. Exception: {}", e);
         }
+
+        buildTemplateIndexes();
+        buildDependencies();
+        foldLiteralTemplates();
+    }
+
+
+    /**
+     * Index the conditional texts of each entry on their equality conditions.
+     */
+    private void buildTemplateIndexes() {
+        Hashtable<String, TemplateIndex> indexes = new Hashtable<>();
+        for (Map.Entry<String, Vector<ConditionalAnnotatedText>> entry : textData.entrySet())
+            indexes.put(entry.getKey(), TemplateIndex.build(entry.getValue()));
+        templateIndexes = indexes;
+    }
+
+
+    /**
+     * Determine the dependencies of each entry and each of its templates. References to other entries are followed
+     * until no entry gains dependencies, so that entries referring to each other get the same dependencies.
+     */
+    private void buildDependencies() {
+        Hashtable<String, TemplateDependencies> dependencies = new Hashtable<>();
+        for (Map.Entry<String, Vector<ConditionalAnnotatedText>> entry : textData.entrySet()) {
+            TemplateDependencies entryDependencies = new TemplateDependencies();
+            for (ConditionalAnnotatedText condText : entry.getValue()) {
+                for (Condition condition : condText.conditions)
+                    entryDependencies.addCondition(condition);
+                entryDependencies.addTemplate(condText.getCompiledTemplate(), this);
+            }
+            dependencies.put(entry.getKey(), entryDependencies);
+        }
+
+        boolean changed;
+        do {
+            changed = false;
+            for (TemplateDependencies entryDependencies : dependencies.values()) {
+                for (String template : new ArrayList<>(entryDependencies.getTemplates())) {
+                    TemplateDependencies referenced = dependencies.get(template);
+                    if (referenced != null && referenced != entryDependencies)
+                        changed |= entryDependencies.addAll(referenced);
+                }
+            }
+        } while (changed);
+        entryDependencies = dependencies;
+
+        templateDependencies = new ConcurrentHashMap<>();
+        for (Vector<ConditionalAnnotatedText> condTexts : textData.values())
+            for (ConditionalAnnotatedText condText : condTexts)
+                getDependencies(condText.getCompiledTemplate());
+    }
+
+
+    /**
+     * Realise the utterances of which the output does not depend on the context, so that they do not need to be
+     * interpreted again at each realisation.
+     */
+    private void foldLiteralTemplates() {
+        LiteralText.Folder folder = new LiteralText.Folder(this);
+        int foldedCount = 0;
+
+        Set<CompiledTemplate> templates = Collections.newSetFromMap(new IdentityHashMap<>());
+        templates.addAll(compiledTemplates.values());
+        for (Vector<ConditionalAnnotatedText> condTexts : textData.values())
+            for (ConditionalAnnotatedText condText : condTexts)
+                templates.add(condText.getCompiledTemplate());
+
+        for (CompiledTemplate template : templates) {
+            Set<CompiledTemplate.Utterance> utterances = Collections.newSetFromMap(new IdentityHashMap<>());
+            utterances.addAll(Arrays.asList(template.getDialogTurns()));
+            utterances.add(template.getWholeText());
+
+            for (CompiledTemplate.Utterance utterance : utterances) {
+                LiteralText literalText = folder.fold(utterance);
+                utterance.setLiteralText(literalText);
+                if (literalText != null)
+                    foldedCount++;
+            }
+        }
+        Logger.tag("ATC").debug("Realised {} literal utterances while loading", foldedCount);
     }
 
 
@@ -131,6 +238,96 @@ public class AuthoredTemplatesCollection {
     }
 
 
+    /**
+     * Returns the index of the conditional texts corresponding to a given entry.
+     *
+     * @param entry the entry to look up
+     * @return the index. null if nothing found.
+     */
+    TemplateIndex getTemplateIndex(String entry) {
+        return templateIndexes.get(entry);
+    }
+
+
+    /**
+     * Returns the values of the context that the output of an entry depends on: the conditions of all its texts and
+     * the templates of all its texts, including the entries they expand.
+     *
+     * @param entry the entry to look up
+     * @return the dependencies. null if nothing found.
+     */
+    public TemplateDependencies getDependencies(String entry) {
+        return entryDependencies.get(entry);
+    }
+
+
+    /**
+     * Returns the values of the context that the output of a conditional text depends on once it has been selected,
+     * including the entries it expands.
+     *
+     * @param condText the conditional text
+     * @return the dependencies
+     */
+    public TemplateDependencies getDependencies(ConditionalAnnotatedText condText) {
+        return getDependencies(condText.getCompiledTemplate());
+    }
+
+
+    /**
+     * Returns the values of the context that the output of a template depends on, including the entries it expands.
+     *
+     * @param template the compiled template
+     * @return the dependencies
+     */
+    TemplateDependencies getDependencies(CompiledTemplate template) {
+        TemplateDependencies dependencies = templateDependencies.get(template);
+        if (dependencies == null) {
+            dependencies = new TemplateDependencies();
+            dependencies.addTemplate(template, this);
+            for (String entry : new ArrayList<>(dependencies.getTemplates()))
+                dependencies.addAll(entryDependencies.get(entry));
+            if (templateDependencies.size() < MAX_CACHED_COMPILED_TEXTS)
+                templateDependencies.put(template, dependencies);
+        }
+        return dependencies;
+    }
+
+
+    /**
+     * Returns the compiled form of a text that is interpreted as a template. The templates of the file are compiled
+     * when reading the file; other texts are compiled on first use.
+     *
+     * @param text the annotated text
+     * @return the compiled template
+     */
+    CompiledTemplate getCompiledTemplate(String text) {
+        CompiledTemplate compiledTemplate = compiledTemplates.get(text);
+        if (compiledTemplate == null) {
+            compiledTemplate = CompiledTemplate.compile(text);
+            if (compiledTemplates.size() < MAX_CACHED_COMPILED_TEXTS)
+                compiledTemplates.put(text, compiledTemplate);
+        }
+        return compiledTemplate;
+    }
+
+
+    /**
+     * Returns the compiled form of an utterance of which the $variables have been expanded.
+     *
+     * @param expandedText the text after expanding the $variables
+     * @return the compiled text
+     */
+    CompiledText getCompiledExpandedText(String expandedText) {
+        CompiledText compiledText = compiledExpandedTexts.get(expandedText);
+        if (compiledText == null) {
+            compiledText = CompiledText.compile(expandedText);
+            if (compiledExpandedTexts.size() < MAX_CACHED_COMPILED_TEXTS)
+                compiledExpandedTexts.put(expandedText, compiledText);
+        }
+        return compiledText;
+    }
+
+
     public String toString() {
         StringBuilder s = new StringBuilder();
         for (String key : textData.keySet()) {
@@ -0,0 +1,104 @@
+package expreal.erRealizer;
+
+import org.tinylog.Logger;
+
+import java.util.ArrayList;
+
+/**
+ * A (sub)clause of a template, with its grammatical blocks ({subject: ...}, {verb: ...}, etc.) already parsed.
+ * Instances are immutable once compiled and can be shared by all realisations of the template.
+ */
+final class CompiledClause {
+    private final String text;
+
+    /**
+     * The parsed input blocks in order of appearance, or null if the braces in the clause are unbalanced or a block
+     * has no type.
+     */
+    private final InputBlock[] inputBlocks;
+
+    /**
+     * The index in the text at which each input block starts.
+     */
+    private final int[] blockOffsets;
+
+    private CompiledClause(String text, InputBlock[] inputBlocks, int[] blockOffsets) {
+        this.text = text;
+        this.inputBlocks = inputBlocks;
+        this.blockOffsets = blockOffsets;
+    }
+
+    /**
+     * Parse a clause and retrieve all its input blocks.
+     *
+     * @param clause the full clause string
+     * @return the compiled clause
+     */
+    static CompiledClause compile(String clause) {
+        ArrayList<InputBlock> result = new ArrayList<>();
+        ArrayList<Integer> offsets = new ArrayList<>();
+
+        int openingBraceIndex = clause.indexOf("{");
+        int braceNetCount = 0;
+        int previousClosingBraceIndex = -1;
+
+        while (openingBraceIndex > -1) {
+
+            if (openingBraceIndex < previousClosingBraceIndex) {
+                Logger.tag("EAR").error("Nested braces in clause: {}", clause);
+                return new CompiledClause(clause, null, null);
+            }
+
+            braceNetCount += 1;
+
+            int closingBraceIndex = clause.indexOf("}", openingBraceIndex);
+            if (closingBraceIndex > -1) {
+                braceNetCount -= 1;
+
+                InputBlock block = new InputBlock(clause.substring(openingBraceIndex, closingBraceIndex + 1));
+                if (!block.isValid())
+                    return new CompiledClause(clause, null, null);
+                result.add(block);
+                offsets.add(openingBraceIndex);
+                previousClosingBraceIndex = closingBraceIndex;
+            }
+
+            openingBraceIndex = clause.indexOf("{", openingBraceIndex + 1);
+        }
+
+        if (braceNetCount != 0) {
+            Logger.tag("EAR").error("Number of opening braces does not match number of closing braces in clause: {}", clause);
+            return new CompiledClause(clause, null, null);
+        }
+
+        int[] blockOffsets = new int[offsets.size()];
+        for (int i = 0; i < blockOffsets.length; i++)
+            blockOffsets[i] = offsets.get(i);
+
+        return new CompiledClause(clause, result.toArray(new InputBlock[0]), blockOffsets);
+    }
+
+    String getText() {
+        return text;
+    }
+
+    /**
+     * @return the input blocks of this clause, or null if the clause could not be parsed
+     */
+    InputBlock[] getInputBlocks() {
+        return inputBlocks;
+    }
+
+    /**
+     * @param blockIndex the index of an input block
+     * @return the index in the text at which the input block starts
+     */
+    int getBlockOffset(int blockIndex) {
+        return blockOffsets[blockIndex];
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
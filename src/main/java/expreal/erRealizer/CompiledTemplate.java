@@ -0,0 +1,165 @@
+package expreal.erRealizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An annotated text as written by the author, compiled once into a tree of dialog turns, sentences, subclauses and
+ * grammatical blocks. Realising the template walks this tree instead of parsing the text again.
+ * <p>
+ * Instances are immutable and can be shared between realisations and threads.
+ */
+final class CompiledTemplate {
+    private final String source;
+
+    /**
+     * The dialog turns, as separated by — or --. A text without separators has a single turn.
+     */
+    private final Utterance[] dialogTurns;
+
+    /**
+     * The whole text as a single utterance, used when the template is expanded inside another template.
+     */
+    private final Utterance wholeText;
+
+    private CompiledTemplate(String source, Utterance[] dialogTurns, Utterance wholeText) {
+        this.source = source;
+        this.dialogTurns = dialogTurns;
+        this.wholeText = wholeText;
+    }
+
+    /**
+     * Compile an annotated text.
+     *
+     * @param source the annotated text
+     * @return the compiled template
+     */
+    static CompiledTemplate compile(String source) {
+        //NB: split inserts an empty string when the sentence starts with the separator, and between two consecutive separators.
+        String[] textParts = TemplateScanner.splitDialogTurns(source);
+        List<Utterance> turns = new ArrayList<>();
+
+        boolean processString = (textParts.length == 1);
+        for (String part : textParts) {
+            if (processString) {
+                turns.add(new Utterance(part));
+                processString = false;
+            } else
+                processString = true;
+        }
+
+        Utterance wholeText;
+        if (turns.size() == 1 && textParts[0].equals(source))
+            wholeText = turns.get(0);
+        else
+            wholeText = new Utterance(source);
+
+        return new CompiledTemplate(source, turns.toArray(new Utterance[0]), wholeText);
+    }
+
+    String getSource() {
+        return source;
+    }
+
+    Utterance[] getDialogTurns() {
+        return dialogTurns;
+    }
+
+    Utterance getWholeText() {
+        return wholeText;
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    /**
+     * A single utterance of a template: an optional #switchDialog marker and the text with its variable slots.
+     */
+    static final class Utterance {
+        private final String text;
+        private final boolean switchDialog;
+        private final String[] dollarVariables;
+        private final String[] percentageVariables;
+
+        /**
+         * The grammatical structure of the text. Null if the text contains $variables, because their expansion
+         * determines the final structure.
+         */
+        private final CompiledText compiledText;
+
+        /**
+         * The output of the utterance if it does not depend on the context. Set while loading the authored templates
+         * collection, before it is used for realising.
+         */
+        private LiteralText literalText;
+
+        Utterance(String utterance) {
+            switchDialog = utterance.startsWith(ERconstants.switchDialog);
+            text = switchDialog ? utterance.substring(ERconstants.switchDialog.length()) : utterance;
+            dollarVariables = findVariables(text, "$");
+            percentageVariables = findVariables(text, ERconstants.variablePrefix);
+            compiledText = (dollarVariables.length == 0) ? CompiledText.compile(text) : null;
+        }
+
+        /**
+         * Lists the names of the variables with the given prefix, in order of appearance.
+         *
+         * @param text   the text to search
+         * @param prefix the variable prefix, $ or %
+         * @return the names of the variables, without prefix
+         */
+        private static String[] findVariables(String text, String prefix) {
+            List<String> variables = new ArrayList<>();
+            int index = text.indexOf(prefix);
+            while (index > -1) {
+                variables.add(Tools.getTextVariable(text, index + 1));
+                index = text.indexOf(prefix, index + 1);
+            }
+            return variables.toArray(new String[0]);
+        }
+
+        String getText() {
+            return text;
+        }
+
+        /**
+         * @return true if the speaker and the listener are exchanged before this utterance
+         */
+        boolean isSwitchDialog() {
+            return switchDialog;
+        }
+
+        String[] getDollarVariables() {
+            return dollarVariables;
+        }
+
+        String[] getPercentageVariables() {
+            return percentageVariables;
+        }
+
+        /**
+         * @return the precompiled structure, or null if it depends on the expansion of $variables
+         */
+        CompiledText getCompiledText() {
+            return compiledText;
+        }
+
+        /**
+         * @return the realised output of the utterance, or null if it depends on the context
+         */
+        LiteralText getLiteralText() {
+            return literalText;
+        }
+
+        void setLiteralText(LiteralText literalText) {
+            this.literalText = literalText;
+        }
+
+        @Override
+        public String toString() {
+            return (switchDialog ? ERconstants.switchDialog : "") + text;
+        }
+    }
+}
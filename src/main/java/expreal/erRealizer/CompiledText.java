@@ -0,0 +1,92 @@
+package expreal.erRealizer;
+
+import org.tinylog.Logger;
+
+/**
+ * The grammatical structure of a single utterance without $variables: its sentences, each split into subclauses.
+ * Only texts that contain grammatical blocks are split; other texts are used as they are.
+ */
+final class CompiledText {
+    private final String text;
+
+    /**
+     * Sentences, each consisting of one or more subclauses. Null if the text has no grammatical blocks.
+     */
+    private final CompiledClause[][] sentences;
+
+    private CompiledText(String text, CompiledClause[][] sentences) {
+        this.text = text;
+        this.sentences = sentences;
+    }
+
+    /**
+     * Split a text into sentences and subclauses and parse the grammatical blocks of each subclause.
+     *
+     * @param text the text, in which the $variables have already been expanded
+     * @return the compiled text
+     */
+    static CompiledText compile(String text) {
+        if (!text.contains("{"))
+            return new CompiledText(text, null);
+
+        String[] sentenceStrings = splitSentences(text);
+        CompiledClause[][] sentences = new CompiledClause[sentenceStrings.length][];
+
+        for (int i = 0; i < sentenceStrings.length; i++) {
+            String[] subclauses = splitSubclauses(sentenceStrings[i]);
+            sentences[i] = new CompiledClause[subclauses.length];
+            for (int j = 0; j < subclauses.length; j++)
+                sentences[i][j] = CompiledClause.compile(subclauses[j]);
+        }
+        return new CompiledText(text, sentences);
+    }
+
+    String getText() {
+        return text;
+    }
+
+    /**
+     * @return true if the text contains grammatical blocks that need to be realised
+     */
+    boolean hasGrammaticalBlocks() {
+        return sentences != null;
+    }
+
+    /**
+     * @return the sentences of this text, each consisting of its subclauses
+     */
+    CompiledClause[][] getSentences() {
+        return sentences;
+    }
+
+    /**
+     * Splits a string into sentences.
+     *
+     * @param fullDialogString the dialog with possibly multiple sentences
+     * @return one or more sentences
+     */
+    private static String[] splitSentences(String fullDialogString) {
+        return TemplateScanner.splitSentences(fullDialogString);
+    }
+
+    /**
+     * Splits a sentence into subclauses.
+     *
+     * @param sentence the sentence to split
+     * @return the subclauses that form the sentence
+     */
+    private static String[] splitSubclauses(String sentence) {
+        String[] subclauses = TemplateScanner.splitSubclausesAtPipes(sentence); // a | with a grammatical block to its right
+
+        if (subclauses.length == 1)
+            subclauses = TemplateScanner.splitBeforeSubjects(sentence);
+        if (subclauses.length > 1)
+            Logger.tag("AT").debug("Multiple subclauses detected: {}", subclauses.length);
+        return subclauses;
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
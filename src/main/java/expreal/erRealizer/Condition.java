@@ -13,19 +13,28 @@ public class Condition extends ERObject {
     String secondOperand;
     OperatorType operator;
 
+    /**
+     * The id of the person in a first operand of the form %personID.propertyName, or null. Split once when the
+     * condition is created, so that verifying the condition does not have to split the key.
+     */
+    private String firstOperandPersonId;
+
+    /**
+     * The second operand of an inequality, parsed once when the condition is created. NaN if it is not a number.
+     */
+    private float threshold = Float.NaN;
+
     public Condition(String s) {
-        String[] twoParts = s.split("(\\s?=\\s?(?![<>]))" + //e.g. ' = '
-                "|(\\s!?in\\s)" +                           //or e.g. ' !in '
-                "|(\\s?(?=[^=])[<>!]=?\\s?)");              //or e.g. ' >= '
+        String[] twoParts = TemplateScanner.splitCondition(s);
 
         if (twoParts.length == 1 && twoParts[0].trim().startsWith("@")) {
-            firstOperand = twoParts[0].replaceFirst("\\$", ""); //$ is a special character.
+            firstOperand = removeFirstDollar(twoParts[0]);
             operator = OperatorType.EQUALITY;
             secondOperand = "true";
         } else if (twoParts.length != 2) {
             Logger.tag("COND").error("Problem in author file: invalid condition field: {}", s);
         } else {
-            firstOperand = twoParts[0].replaceFirst("\\$", ""); //$ is a special character.
+            firstOperand = removeFirstDollar(twoParts[0]);
             secondOperand = twoParts[1];
             if (s.contains(">="))
                 operator = OperatorType.GREATER_THAN_OR_EQUAL;
@@ -47,8 +56,7 @@ public class Condition extends ERObject {
                 Logger.tag("COND").error("Invalid operand in condition: {}", s);
         }
 
-        if (firstOperand.split("\\.").length > 1)
-            firstOperandProperty = firstOperand.split("\\.")[1];
+        compile();
     }
 
     /**
@@ -68,6 +76,39 @@ public class Condition extends ERObject {
             operator = OperatorType.EQUALITY;
         if (secondOperand.equals(""))
             secondOperand = "true";
+
+        compile();
+    }
+
+    /**
+     * Prepare the operands for verifying the condition: split the first operand into the person and its property and
+     * parse the second operand of an inequality.
+     */
+    private void compile() {
+        if (firstOperand == null)
+            return;
+
+        int separatorIndex = firstOperand.indexOf('.');
+        if (separatorIndex != -1) {
+            int idStart = firstOperand.startsWith("%") ? 1 : 0;
+            int propertyEnd = firstOperand.indexOf('.', separatorIndex + 1);
+            firstOperandPersonId = firstOperand.substring(idStart, separatorIndex);
+            firstOperandProperty = firstOperand.substring(separatorIndex + 1,
+                    propertyEnd == -1 ? firstOperand.length() : propertyEnd);
+        }
+
+        if (isInequality()) {
+            try {
+                threshold = Float.parseFloat(secondOperand);
+            } catch (NumberFormatException e) {
+                Logger.tag("COND").error("Problem in author file: not a number in condition: {}", this);
+            }
+        }
+    }
+
+    boolean isInequality() {
+        return operator == OperatorType.GREATER_THAN || operator == OperatorType.GREATER_THAN_OR_EQUAL
+                || operator == OperatorType.SMALLER_THAN || operator == OperatorType.SMALLER_THAN_OR_EQUAL;
     }
 
     /**
@@ -77,78 +118,135 @@ public class Condition extends ERObject {
      * @return true if the condition is verified.
      */
     public boolean isVerified(ERContext context) {
-        ERObject object = context.getObjectByKey(firstOperand);
+        if (firstOperand == null || operator == null)
+            return false;
 
-        String val;
+        ERObject object = context.getObjectByKey(firstOperand, firstOperandPersonId, firstOperandProperty);
 
         switch (operator) {
             case EQUALITY:
                 if (object == null) return false;
-                val = getValueOfContextualObject(object);
-                return val.equals(secondOperand);
+                return getValueOfContextualObject(object).equals(secondOperand);
             case DIFFERENCE:
                 if (object == null) return true;
-                val = getValueOfContextualObject(object);
-                return !val.equals(secondOperand);
+                return !getValueOfContextualObject(object).equals(secondOperand);
             case GREATER_THAN:
-                return verifyInequalityComparison(object, ">");
             case GREATER_THAN_OR_EQUAL:
-                return verifyInequalityComparison(object, ">=");
             case SMALLER_THAN:
-                return verifyInequalityComparison(object, "<");
             case SMALLER_THAN_OR_EQUAL:
-                return verifyInequalityComparison(object, "<=");
+                return verifyInequalityComparison(object);
             case CONTAINING:
                 if (object == null) return false;
-                val = getValueOfContextualObject(object);
-                val = val.substring(1, val.length() - 1);
-                String[] allElements = val.split(",");
-                for (String currentElt : allElements) {
-                    if (currentElt.equals(secondOperand)) {
-                        return true;
-                    }
-                }
-                return false;
+                return contains(object);
             case NOT_CONTAINING:
                 if (object == null) return true;
-                val = getValueOfContextualObject(object);
-                if (val.length() < 2) return true;
-                val = val.substring(1, val.length() - 1);
-                if (val.equals("")) return true;
-                String[] allElements2 = val.split(",");
-                for (String currentElt : allElements2) {
-                    if (currentElt.equals(secondOperand))
-                        return false;
-                }
-                return true;
+                return !contains(object);
             default:
                 return true;
         }
     }
 
-    private boolean verifyInequalityComparison(ERObject object, String type) {
+    private boolean verifyInequalityComparison(ERObject object) {
         if (object == null) return false;
 
         Float floatVal = getFloatValueOfContextualObject(object);
         if (floatVal == null) return false;
 
-        float floatValSecondOperand = Float.parseFloat(secondOperand);
-
-        switch (type) {
-            case ">":
-                return floatVal > floatValSecondOperand;
-            case "<":
-                return floatVal < floatValSecondOperand;
-            case ">=":
-                return floatVal >= floatValSecondOperand;
-            case "<=":
-                return floatVal <= floatValSecondOperand;
+        switch (operator) {
+            case GREATER_THAN:
+                return floatVal > threshold;
+            case SMALLER_THAN:
+                return floatVal < threshold;
+            case GREATER_THAN_OR_EQUAL:
+                return floatVal >= threshold;
+            case SMALLER_THAN_OR_EQUAL:
+                return floatVal <= threshold;
             default:
                 return false;
         }
     }
 
-    private String getValueOfContextualObject(ERObject object) {
+    /**
+     * Get the value of the property in the first operand of the form %personID.propertyName, as compared by an
+     * inequality.
+     *
+     * @param context the context in which to look up the person
+     * @return the value, or null if the person or the property is not in the context
+     */
+    Float getPropertyValue(ERContext context) {
+        return getFloatValueOfContextualObject(
+                context.getObjectByKey(firstOperand, firstOperandPersonId, firstOperandProperty));
+    }
+
+    /**
+     * @return the second operand of an inequality as a number, NaN if it is not a number
+     */
+    float getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Check whether the value of an object, a list of the form [a,b,c], has the second operand as element.
+     *
+     * @param object the object from the context
+     * @return true if the list has the element
+     */
+    private boolean contains(ERObject object) {
+        if (object instanceof ERArgument)
+            return ((ERArgument) object).getValueSet().contains(secondOperand);
+        return listContains(getValueOfContextualObject(object), secondOperand);
+    }
+
+    /**
+     * Remove the first $ of an operand, e.g. of $task = fetch.
+     */
+    private static String removeFirstDollar(String operand) {
+        int index = operand.indexOf('$');
+        if (index == -1)
+            return operand;
+        return operand.substring(0, index) + operand.substring(index + 1);
+    }
+
+    /**
+     * Check whether a list of the form [a,b,c] has an element, without splitting the list.
+     *
+     * @param list    the list, including the brackets
+     * @param element the element to find
+     * @return true if one of the elements of the list equals the element
+     */
+    private static boolean listContains(String list, String element) {
+        if (list.length() < 2) return false;
+
+        int end = list.length() - 1;
+        int elementStart = 1;
+        while (elementStart <= end) {
+            int elementEnd = list.indexOf(',', elementStart);
+            if (elementEnd == -1 || elementEnd > end)
+                elementEnd = end;
+
+            if (elementEnd - elementStart == element.length()
+                    && list.regionMatches(elementStart, element, 0, element.length()))
+                return true;
+
+            elementStart = elementEnd + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Get the value that a key has in the context, as it is compared by equality conditions.
+     *
+     * @param context the context in which to look up the key
+     * @param key     the key, e.g. the name of an argument or a user-defined condition
+     * @return the value, or null if the key is not found in the context
+     */
+    static String getContextValue(ERContext context, String key) {
+        ERObject object = context.getObjectByKey(key);
+        if (object == null) return null;
+        return getValueOfContextualObject(object);
+    }
+
+    private static String getValueOfContextualObject(ERObject object) {
         if (object != null) {
             if (object instanceof Condition) {
                 return ((Condition) object).getSecondOperand();
@@ -180,7 +278,7 @@ public class Condition extends ERObject {
      * @param object the object to retrieve the name from
      * @return the name
      */
-    private String getObjectName(ERObject object) {
+    private static String getObjectName(ERObject object) {
         String result;
         if (object instanceof ERPerson)
             result = ((ERPerson) object).getId();
@@ -191,6 +289,13 @@ public class Condition extends ERObject {
         return result;
     }
 
+    /**
+     * @return the id of the person in a first operand of the form %personID.propertyName, or null
+     */
+    String getFirstOperandPersonId() {
+        return firstOperandPersonId;
+    }
+
     public String getFirstOperand() {
         return firstOperand;
     }
@@ -199,6 +304,10 @@ public class Condition extends ERObject {
         return secondOperand;
     }
 
+    public OperatorType getOperator() {
+        return operator;
+    }
+
     public String toString() {
         return firstOperand + operator + secondOperand;
     }
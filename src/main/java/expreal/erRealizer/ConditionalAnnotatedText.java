@@ -14,6 +14,7 @@ public class ConditionalAnnotatedText {
 
     String conditionString;
     String annotatedText;
+    CompiledTemplate compiledTemplate;
     Vector<Condition> conditions;
     /**
      * specificity of the conditions: the more specific, the more adequate the annotated text is.
@@ -25,11 +26,12 @@ public class ConditionalAnnotatedText {
     public ConditionalAnnotatedText(String _condition, String _annotatedText) {
         conditionString = _condition;
         annotatedText = _annotatedText;
+        compiledTemplate = CompiledTemplate.compile(_annotatedText);
         conditions = new Vector<>();
         specificity = 0;
 
         /* get rid of the spaces around comas */
-        conditionString = conditionString.replaceAll(" *, *", ",");
+        conditionString = TemplateScanner.removeSpacesAroundCommas(conditionString);
 
         if (conditionString.isEmpty())
             return;
@@ -67,6 +69,14 @@ public class ConditionalAnnotatedText {
     }
 
 
+    /**
+     * Add a condition to this text. It is taken into account by {@link #verifiedCondition(ERContext)}, but not when
+     * texts are selected for realisation: the entries are indexed on their conditions when the author file is loaded.
+     *
+     * @param cond the condition
+     * @deprecated conditions added after loading do not affect which text is realised; write them in the author file
+     */
+    @Deprecated
     public void addCondition(Condition cond) {
         conditions.add(cond);
     }
@@ -77,6 +87,11 @@ public class ConditionalAnnotatedText {
     }
 
 
+    CompiledTemplate getCompiledTemplate() {
+        return compiledTemplate;
+    }
+
+
     public int getSpecificity() {
         return specificity;
     }
@@ -0,0 +1,176 @@
+package expreal.erRealizer;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The discourse state of a single conversation: the mention history that is used for generating referring
+ * expressions, and whether the next referring expression starts a new thread.
+ * <p>
+ * An {@link ExpressiveActionRealizer} only holds state that is shared by all conversations (lexicon, templates), so a
+ * single realizer can serve many sessions from many threads at the same time. Realisations that use the same session
+ * are executed one at a time, in the order in which they acquire the session.
+ * <p>
+ * Each session has its own random generator to pick between equally suitable templates. A session created with a
+ * seed makes the same choices each time the same realisations are done in it, e.g. to replay a conversation.
+ * <p>
+ * Asynchronous realisations are queued per session, so that they are executed in the order in which they were
+ * requested.
+ */
+public class DiscourseSession {
+
+    private final ReferringExpressionGenerator refExpGen = new ReferringExpressionGenerator();
+    private final SplittableRandom random;
+
+    private final Object queueLock = new Object();
+    private CompletableFuture<Void> queueTail = CompletableFuture.completedFuture(null);
+
+    /**
+     * The asynchronous realisation that is being executed in this session, or null.
+     */
+    private Future<?> currentRequest;
+
+    /**
+     * Whether the realisation that is being recorded gives the same text and mentions each time, see
+     * {@link #startRecording()}.
+     */
+    private boolean recordingReusable;
+
+    /**
+     * Create a session without any mention history.
+     */
+    public DiscourseSession() {
+        random = new SplittableRandom();
+    }
+
+    /**
+     * Create a session without any mention history, of which the choices between templates are reproducible.
+     *
+     * @param seed the seed of the random generator of this session
+     */
+    public DiscourseSession(long seed) {
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Mark the next round of generating referring expressions in this session as the start of a new 'thread', as
+     * described by McCoy &amp; Strube. This will reset the mention distance counts and therefore use a definite description.
+     */
+    public synchronized void markThreadChange() {
+        refExpGen.doThreadChange();
+    }
+
+    /**
+     * Get the referring expression generator holding the mention history of this session.
+     * Must only be used while holding the lock of this session.
+     *
+     * @return the generator
+     */
+    ReferringExpressionGenerator getRefExpGen() {
+        return refExpGen;
+    }
+
+    /**
+     * Pick one of a number of equally suitable variants.
+     * Must only be used while holding the lock of this session.
+     *
+     * @param variants the number of variants
+     * @return the index of the picked variant
+     */
+    int nextVariant(int variants) {
+        recordingReusable = false;
+        return random.nextInt(variants);
+    }
+
+    /**
+     * Start recording a realisation, to find out whether its result can be reused: it can if no variants are picked
+     * and the mention history is only updated, not read.
+     * Must only be used while holding the lock of this session.
+     */
+    void startRecording() {
+        recordingReusable = true;
+        refExpGen.startRecordingMentions();
+    }
+
+    /**
+     * Mark the realisation that is being recorded as depending on the mention history.
+     * Must only be used while holding the lock of this session.
+     */
+    void markHistoryDependent() {
+        recordingReusable = false;
+    }
+
+    /**
+     * Stop recording a realisation.
+     * Must only be used while holding the lock of this session.
+     *
+     * @return the keys of which the mention distance was updated, in order, or null if the result of the realisation
+     * cannot be reused
+     */
+    List<String> stopRecording() {
+        List<String> mentions = refExpGen.stopRecordingMentions();
+        return recordingReusable ? mentions : null;
+    }
+
+    /**
+     * Queue a task to be executed by the executor after all tasks queued before it in this session have finished.
+     * The task is handed to the executor when the task before it has finished, in the thread that finished it.
+     *
+     * @param task     the task
+     * @param executor the executor that executes the task
+     * @return a future that is completed when the task has finished, or completed exceptionally if the task threw an
+     * exception or the executor rejected it. The next task is executed in either case.
+     */
+    CompletableFuture<Void> enqueue(Runnable task, Executor executor) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> previous;
+        synchronized (queueLock) {
+            previous = queueTail;
+            queueTail = done;
+        }
+        previous.whenComplete((ignored, previousException) -> {
+            // Submitted here rather than with thenRunAsync, which leaves the future incomplete if the executor rejects
+            // the task while the previous task is still running, so that the rest of the queue would wait forever
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                        done.complete(null);
+                    } catch (Throwable e) {
+                        done.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Set the asynchronous realisation that is being executed, of which the cancellation is checked between clauses.
+     * Must only be used while holding the lock of this session.
+     *
+     * @param request the future of the realisation, or null when done
+     */
+    void setCurrentRequest(Future<?> request) {
+        currentRequest = request;
+    }
+
+    /**
+     * Stop the realisation if it was cancelled. The mention history keeps the mentions of the clauses that were
+     * already realised.
+     * Must only be used while holding the lock of this session.
+     *
+     * @throws CancellationException if the realisation that is being executed was cancelled
+     */
+    void checkCancelled() {
+        if (currentRequest != null && currentRequest.isCancelled())
+            throw new CancellationException();
+    }
+}
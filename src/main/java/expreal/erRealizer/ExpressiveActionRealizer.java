@@ -6,7 +6,6 @@ import simplenlg.features.Feature;
 import simplenlg.features.Form;
 import simplenlg.features.Gender;
 import simplenlg.features.LexicalFeature;
-import simplenlg.framework.LexicalCategory;
 import simplenlg.framework.NLGElement;
 import simplenlg.framework.NLGFactory;
 import simplenlg.framework.WordElement;
@@ -18,12 +17,19 @@ import simplenlg.realiser.Realiser;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.net.URL;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Vector;
-import java.util.regex.Pattern;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 
 /**
@@ -31,14 +37,41 @@ import java.util.regex.Pattern;
  *
  * @author szilas, rfdj
  */
-public class ExpressiveActionRealizer {
+public class ExpressiveActionRealizer implements AutoCloseable {
 
-    private final ReferringExpressionGenerator refExpGen = new ReferringExpressionGenerator();
+    /**
+     * The session used by the methods that do not take a session, for applications with a single conversation.
+     */
+    private final DiscourseSession defaultSession = new DiscourseSession();
     private AnnotatedText annotatedText;
     private AuthoredTemplatesCollection authoredTemplatesCollection;
     private Lexicon lexicon;
+
+    /**
+     * Whether the lexicon was acquired from the {@link LexiconRegistry} and still needs to be released.
+     */
+    private boolean isLexiconShared = false;
+
+    /**
+     * The lookup of the words of the templates in the lexicon, shared by the realizers that use the same lexicon.
+     */
+    private ERWordLookup wordLookup;
     private NLGFactory nlgFactory;
-    private Realiser realiser = new Realiser();
+
+    /**
+     * The realiser keeps state while realising, so each thread uses its own.
+     */
+    private final ThreadLocal<Realiser> realiser = ThreadLocal.withInitial(Realiser::new);
+
+    /**
+     * The executor of the asynchronous realisations.
+     */
+    private volatile Executor executor = ForkJoinPool.commonPool();
+
+    /**
+     * The cache of realised texts, or null if realisations are not cached.
+     */
+    private volatile RealizationCache cache;
     private ERLanguage currentLanguage;
 
     /**
@@ -50,7 +83,10 @@ public class ExpressiveActionRealizer {
      */
     public ExpressiveActionRealizer(String fileName) {
         Logger.tag("EAR").debug(">\tInitializing EAR (default language)...");
-        lexicon = Lexicon.getDefaultLexicon();
+        currentLanguage = ERLanguage.DEFAULT_LANGUAGE;
+
+        loadLexicon(ERLanguage.DEFAULT_LANGUAGE, null);
+
         nlgFactory = new NLGFactory(lexicon);
         annotatedText = new AnnotatedText(this);
 
@@ -70,10 +106,22 @@ public class ExpressiveActionRealizer {
      * @param language           language for this realiser
      */
     public ExpressiveActionRealizer(String fileNameAsResource, ERLanguage language) {
+        this(fileNameAsResource, language, null);
+    }
+
+    /**
+     * Constructor.
+     * Reads the author file.
+     *
+     * @param fileNameAsResource full name of the .csv author file.
+     * @param language           language for this realiser
+     * @param lexiconUri         location of a custom XML lexicon for the language, or null for the bundled lexicon
+     */
+    public ExpressiveActionRealizer(String fileNameAsResource, ERLanguage language, URI lexiconUri) {
         Logger.tag("EAR").debug(">\tInitializing EAR with language '{}'...", language);
         currentLanguage = language;
 
-        loadLexicon(language);
+        loadLexicon(language, lexiconUri);
 
         nlgFactory = new NLGFactory(lexicon);
         annotatedText = new AnnotatedText(this);
@@ -97,7 +145,7 @@ public class ExpressiveActionRealizer {
         Logger.tag("EAR").debug(">\tInitializing EAR with language '{}'...", language);
         currentLanguage = language;
 
-        loadLexicon(language);
+        loadLexicon(language, null);
 
         nlgFactory = new NLGFactory(lexicon);
         annotatedText = new AnnotatedText(this);
@@ -111,58 +159,236 @@ public class ExpressiveActionRealizer {
     }
 
     /**
-     * Loads the lexicon for the selected language. Defaults to English.
+     * Gets the lexicon for the selected language from the lexicons shared by all realizers. Defaults to English.
      *
-     * @param language the language for which to load the lexicon
-     */
-    private void loadLexicon(ERLanguage language) {
-        Logger.tag("EAR").debug("Loading lexicon for language '{}'...", language);
-        switch (language) {
-            case DUTCH:
-                URI dutchResURI = getResourceUri("/expreal-simplenlg-dutch-lexicon-8k-default.xml");
-                lexicon = new simplenlg.lexicon.dutch.XMLLexicon(dutchResURI);
-                break;
-            case FRENCH:
-                URI frenchResURI = getResourceUri("/expreal-simplenlg-french-lexicon.xml");
-                lexicon = new simplenlg.lexicon.french.XMLLexicon(frenchResURI);
-                break;
-            case ENGLISH:
-            default:
-                URI englishResURI = getResourceUri("/expreal-simplenlg-english-lexicon.xml");
-                lexicon = new simplenlg.lexicon.english.XMLLexicon(englishResURI);
-        }
+     * @param language   the language for which to load the lexicon
+     * @param lexiconUri the location of a custom XML lexicon, or null for the bundled lexicon
+     */
+    private void loadLexicon(ERLanguage language, URI lexiconUri) {
+        lexicon = LexiconRegistry.acquire(language, lexiconUri);
+        wordLookup = LexiconRegistry.getWordLookup(lexicon);
+        isLexiconShared = true;
     }
 
     /**
-     * Gets a resource based on a file string.
-     *
-     * @param resourceFileLocation relative resource location
-     * @return URI of resource
+     * Release the shared lexicon used by this realizer. The realizer should not be used anymore afterwards.
      */
-    private URI getResourceUri(String resourceFileLocation) {
-        URL resource = this.getClass().getResource(resourceFileLocation);
-        URI resourceURI = null;
-
-        try {
-            resourceURI = resource.toURI();
-        } catch (Exception e) {
-            Logger.tag("EAR").error("Cannot get URI of resource: {}: {}", resourceFileLocation, e);
+    @Override
+    public synchronized void close() {
+        if (isLexiconShared) {
+            LexiconRegistry.release(lexicon);
+            isLexiconShared = false;
         }
-        return resourceURI;
     }
 
     /**
      * Returns all the texts for a given predicate, that can then be assembled to create a dialog.
+     * Uses the default session of this realizer.
      *
      * @param pred    predicate to be expressed by text
      * @param context context around this predicate
      * @return a series of texts describing the dialog(s) to play in order to express this predicate.
      */
     public Vector<String> getTexts(ERPredicate pred, ERContext context) {
-        Logger.tag("EAR").debug("Calling getText for predicate '{}' in context: {}", pred, context);
+        return getTexts(pred, context, defaultSession);
+    }
+
+    /**
+     * Returns all the texts for a given predicate, that can then be assembled to create a dialog.
+     * This method can be called from multiple threads at the same time. Calls with the same session are executed one
+     * at a time; the context should not be shared with calls using other sessions.
+     *
+     * @param pred    predicate to be expressed by text
+     * @param context context around this predicate
+     * @param session the conversation of which the mention history is used and updated. If null, a new session is used.
+     * @return a series of texts describing the dialog(s) to play in order to express this predicate.
+     */
+    public Vector<String> getTexts(ERPredicate pred, ERContext context, DiscourseSession session) {
+        if (session == null)
+            session = new DiscourseSession();
+
+        synchronized (session) {
+            return getTextsInSession(pred, context, session);
+        }
+    }
+
+    /**
+     * Passes the texts for a given predicate to a consumer one at a time, as soon as each line of the dialog has been
+     * realised, e.g. to show the first line while the next lines are still being realised. The texts are the same as
+     * those returned by {@link #getTexts(ERPredicate, ERContext, DiscourseSession)}.
+     * <p>
+     * The consumer is called while holding the lock of the session, so it should not wait for other realisations in
+     * the same session.
+     *
+     * @param pred     predicate to be expressed by text
+     * @param context  context around this predicate
+     * @param session  the conversation of which the mention history is used and updated. If null, a new session is used.
+     * @param consumer the consumer of each text describing a dialog to play, in order
+     */
+    public void streamTexts(ERPredicate pred, ERContext context, DiscourseSession session, Consumer<? super String> consumer) {
+        if (session == null)
+            session = new DiscourseSession();
+
+        synchronized (session) {
+            streamTextsInSession(pred, context, session, consumer);
+        }
+    }
+
+    /**
+     * Returns a future of all the texts for a given predicate, which is realised by the executor of this realizer.
+     * Uses the default session of this realizer.
+     *
+     * @param pred    predicate to be expressed by text
+     * @param context context around this predicate
+     * @return a future of the texts describing the dialog(s) to play in order to express this predicate.
+     * @see #getTextsAsync(ERPredicate, ERContext, DiscourseSession)
+     */
+    public CompletableFuture<List<String>> getTextsAsync(ERPredicate pred, ERContext context) {
+        return getTextsAsync(pred, context, defaultSession);
+    }
+
+    /**
+     * Returns a future of all the texts for a given predicate, which is realised by the executor of this realizer.
+     * Realisations in the same session are executed in the order in which they were requested, also with an executor
+     * that uses multiple threads.
+     * <p>
+     * Cancelling the future stops the realisation before the next clause. The mention history keeps the mentions of
+     * the clauses that were already realised.
+     *
+     * @param pred    predicate to be expressed by text
+     * @param context context around this predicate; it should not be changed until the future is done
+     * @param session the conversation of which the mention history is used and updated. If null, a new session is used.
+     * @return a future of the texts describing the dialog(s) to play in order to express this predicate.
+     */
+    public CompletableFuture<List<String>> getTextsAsync(ERPredicate pred, ERContext context, DiscourseSession session) {
+        DiscourseSession requestSession = session == null ? new DiscourseSession() : session;
+        CompletableFuture<List<String>> result = new CompletableFuture<>();
+
+        requestSession.enqueue(() -> {
+            if (result.isDone()) return;
+            try {
+                synchronized (requestSession) {
+                    requestSession.setCurrentRequest(result);
+                    try {
+                        result.complete(getTextsInSession(pred, context, requestSession));
+                    } finally {
+                        requestSession.setCurrentRequest(null);
+                    }
+                }
+            } catch (CancellationException e) {
+                result.cancel(false);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, executor).whenComplete((ignored, e) -> {
+            // The executor rejected the task
+            if (e != null) result.completeExceptionally(e);
+        });
+        return result;
+    }
+
+    /**
+     * Set the executor of the asynchronous realisations, e.g. an executor of the event loop of the application, or
+     * {@code Executors.newVirtualThreadPerTaskExecutor()} on Java 21 or newer. Realisations that were already
+     * requested still use the previous executor.
+     *
+     * @param executor the executor, or null for the common {@link ForkJoinPool}
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor == null ? ForkJoinPool.commonPool() : executor;
+    }
+
+    /**
+     * Set the cache of realised texts. Realisations are not cached by default.
+     *
+     * @param cache the cache, or null to stop caching
+     */
+    public void setCache(RealizationCache cache) {
+        this.cache = cache;
+    }
+
+    public RealizationCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the texts for each of the given requests, like calling {@link #getTexts} for each request in order.
+     * Requests with the same session are realised one after the other in the order of the list; requests with
+     * different sessions are realised in parallel in the common {@link ForkJoinPool}.
+     *
+     * @param requests the predicates and contexts to be expressed by text
+     * @return the texts of each request, in the order of the requests
+     */
+    public List<Vector<String>> realizeAll(List<RealizationRequest> requests) {
+        return realizeAll(requests, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the texts for each of the given requests, like calling {@link #getTexts} for each request in order.
+     * Requests with the same session are realised one after the other in the order of the list; requests with
+     * different sessions are realised in parallel by the given executor. A context should not be shared by requests
+     * with different sessions.
+     *
+     * @param requests the predicates and contexts to be expressed by text
+     * @param executor the executor that realises the requests of each session
+     * @return the texts of each request, in the order of the requests
+     */
+    public List<Vector<String>> realizeAll(List<RealizationRequest> requests, Executor executor) {
+        // Group the indices of the requests by session, keeping the order of the requests within each session
+        Map<DiscourseSession, List<Integer>> requestsBySession = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RealizationRequest request = requests.get(i);
+            DiscourseSession session = request.isInDefaultSession() ? defaultSession : request.getSession();
+            if (session == null)
+                session = new DiscourseSession();
+            requestsBySession.computeIfAbsent(session, s -> new ArrayList<>()).add(i);
+        }
+
+        // Filled with nulls so that each session can set the results of its own requests by index
+        List<Vector<String>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        if (requestsBySession.size() <= 1) {
+            for (Map.Entry<DiscourseSession, List<Integer>> entry : requestsBySession.entrySet())
+                realizeInSession(requests, entry.getValue(), entry.getKey(), results);
+            return results;
+        }
+
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requestsBySession.size()];
+        int i = 0;
+        for (Map.Entry<DiscourseSession, List<Integer>> entry : requestsBySession.entrySet())
+            futures[i++] = CompletableFuture.runAsync(
+                    () -> realizeInSession(requests, entry.getValue(), entry.getKey(), results), executor);
+
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+        return results;
+    }
+
+    private void realizeInSession(List<RealizationRequest> requests, List<Integer> indices, DiscourseSession session,
+                                  List<Vector<String>> results) {
+        synchronized (session) {
+            for (int index : indices) {
+                RealizationRequest request = requests.get(index);
+                results.set(index, getTextsInSession(request.getPredicate(), request.getContext(), session));
+            }
+        }
+    }
+
+    private Vector<String> getTextsInSession(ERPredicate pred, ERContext context, DiscourseSession session) {
         Vector<String> result = new Vector<>();
+        streamTextsInSession(pred, context, session, result::add);
+        Logger.tag("EAR").debug("Final text vector: {}", result);
+        return result;
+    }
+
+    private void streamTextsInSession(ERPredicate pred, ERContext context, DiscourseSession session, Consumer<? super String> consumer) {
+        Logger.tag("EAR").debug("Calling getText for predicate '{}' in context: {}", pred, context);
 
-        if (!context.isValid()) return result;
+        if (!context.isValid()) return;
 
         // Adding local context
         ERContext localContext = new ERContext(context);
@@ -170,48 +396,90 @@ public class ExpressiveActionRealizer {
         // Variable extractions
         addArgumentsToLocalContext(pred, localContext);
 
-        String text = annotatedText.selectAnnotatedText(pred.getType().getName(), localContext);
-        Logger.tag("EAR").debug("Selected annotated text: {}", text);
+        CompiledTemplate template = annotatedText.selectTemplate(pred.getType().getName(), localContext, session);
+        Logger.tag("EAR").debug("Selected annotated text: {}", template);
 
         // No entry found
-        if (text.equals("")) {
-            result.add(pred.toString());
-            return result;
+        if (template == null || template.getSource().equals("")) {
+            consumer.accept(pred.toString());
+            return;
         }
 
-        processMultiLineDialogs(text, localContext, result);
+        // The texts of grammatical blocks depend on the mention history, so they are never stored
+        RealizationCache cache = this.cache;
+        if (cache == null || authoredTemplatesCollection == null
+                || authoredTemplatesCollection.getDependencies(template).isGrammatical()) {
+            processMultiLineDialogs(template, localContext, session, consumer);
+            return;
+        }
 
-        Logger.tag("EAR").debug("Final text vector: {}", result);
-        return result;
+        RealizationCache.Key key = RealizationCache.createKey(template, currentLanguage, localContext, authoredTemplatesCollection);
+        RealizationCache.CachedTexts cachedTexts = cache.get(key);
+        if (cachedTexts != null) {
+            Logger.tag("EAR").debug("Reusing cached texts for: {}", template);
+            cachedTexts.updateMentionDistances(session.getRefExpGen());
+            for (String text : cachedTexts.getTexts())
+                consumer.accept(text);
+            return;
+        }
+
+        List<String> texts = new ArrayList<>();
+        List<String> mentions;
+        session.startRecording();
+        try {
+            processMultiLineDialogs(template, localContext, session, text -> {
+                texts.add(text);
+                consumer.accept(text);
+            });
+        } finally {
+            mentions = session.stopRecording();
+        }
+        if (mentions != null)
+            cache.put(key, texts, mentions);
     }
 
     /**
-     * Get the referring expression generator associated with this realizer.
+     * Returns the values of the context that the output of an entry of the authored templates depends on.
+     *
+     * @param entry the entry, e.g. the name of a predicate
+     * @return the dependencies, or null if the entry does not exist
+     */
+    public TemplateDependencies getDependencies(String entry) {
+        if (authoredTemplatesCollection == null)
+            return null;
+        return authoredTemplatesCollection.getDependencies(entry);
+    }
+
+    /**
+     * Get the referring expression generator of the default session of this realizer.
      *
      * @return refExpGen the generator
      */
     public ReferringExpressionGenerator getRefExpGen() {
-        return refExpGen;
+        return defaultSession.getRefExpGen();
+    }
+
+    /**
+     * Get the session used when no session is provided.
+     *
+     * @return the default session
+     */
+    DiscourseSession getDefaultSession() {
+        return defaultSession;
     }
 
     /**
-     * Split dialogs with multiple lines (split by — or --) and save the interpreted text.
+     * Interpret each line of a dialog (lines are split by — or --) and save the interpreted text.
      *
-     * @param multipleLinesString the text to split and process
-     * @param result              the result in which to store
-     * @param localContext        the local context used for interpreting
-     */
-    private void processMultiLineDialogs(String multipleLinesString, ERContext localContext, Vector<String> result) {
-        //NB: split inserts an empty string when the sentence starts with the separator, and between two consecutive separators.
-        String[] textParts = multipleLinesString.split("—|--");
-
-        boolean processString = (textParts.length == 1);
-        for (String part : textParts) {
-            if (processString) {
-                result.add(annotatedText.interpret(part, localContext));
-                processString = false;
-            } else
-                processString = true;
+     * @param template     the compiled template with the dialog lines
+     * @param localContext the local context used for interpreting
+     * @param session      the session with the mention history
+     * @param consumer     the consumer to which each interpreted line is passed as soon as it is interpreted
+     */
+    private void processMultiLineDialogs(CompiledTemplate template, ERContext localContext, DiscourseSession session, Consumer<? super String> consumer) {
+        for (CompiledTemplate.Utterance dialogTurn : template.getDialogTurns()) {
+            session.checkCancelled();
+            consumer.accept(annotatedText.interpret(dialogTurn, localContext, session));
         }
     }
 
@@ -231,32 +499,33 @@ public class ExpressiveActionRealizer {
     /**
      * Interpret a text that constitutes a pseudo-clause, that contains grammatical annotations (marked with accolades {})
      *
-     * @param clause  string to be analyzed
-     * @param context contextual information.
+     * @param compiledClause the compiled clause to be analyzed
+     * @param context        contextual information.
+     * @param session        the session with the mention history
      * @return a text without grammatical annotations (but with variables, prefixed with _)
      */
-    String interpretGrammaticalClause(String clause, ERContext context) {
+    String interpretGrammaticalClause(CompiledClause compiledClause, ERContext context, DiscourseSession session) {
+        String clause = compiledClause.getText();
         Logger.tag("EAR").debug("Starting to interpret grammatical clause: {}", clause);
         SPhraseSpec phrase = nlgFactory.createClause();
+        Realiser realiser = this.realiser.get();
 
-        String result = clause;
-
-        ArrayList<InputBlock> allInputBlocks = getAllInputBlocks(clause);
-        Logger.tag("EAR").debug("Found input blocks: {}", allInputBlocks);
-
+        InputBlock[] allInputBlocks = compiledClause.getInputBlocks();
         if (allInputBlocks == null)
-            return result;
+            return clause;
+
+        Logger.tag("EAR").debug("Found input blocks: {}", Arrays.toString(allInputBlocks));
 
         ArrayList<ParseInputBlockReturn> parsedInputBlocks = new ArrayList<>();
         ArrayList<String> detectedTypes = new ArrayList<>();
 
         for (InputBlock block : allInputBlocks) {
-            ParseInputBlockReturn parsedBlock = parseInputBlock(block, context, phrase);
+            ParseInputBlockReturn parsedBlock = parseInputBlock(block, context, phrase, session);
             if (detectedTypes.contains(block.getTypeString())
                     && !block.getTypeString().equals("complement")
                     && !block.getTypeString().equals("inf")) {
                 Logger.tag("EAR").error("found duplicate '{}' in clause: '{}'", block.getTypeString(), clause);
-                return result;
+                return clause;
             }
 
             detectedTypes.add(block.getTypeString());
@@ -267,7 +536,24 @@ public class ExpressiveActionRealizer {
         // Call realiser to realise the sentence as a whole, so we can get the specific parts later
         realiser.realise(phrase);
 
-        for (ParseInputBlockReturn parsedBlock : parsedInputBlocks) {
+        // Build the clause from the canned text between the blocks and the realised blocks
+        StringBuilder result = new StringBuilder(clause.length() + 16);
+        boolean doCapitalise = false;
+        int cannedTextStart = 0;
+
+        for (int i = 0; i < allInputBlocks.length; i++) {
+            ParseInputBlockReturn parsedBlock = parsedInputBlocks.get(i);
+            int blockStart = compiledClause.getBlockOffset(i);
+            int blockEnd = blockStart + allInputBlocks[i].getRawString().length();
+
+            result.append(clause, cannedTextStart, blockStart);
+            cannedTextStart = blockEnd;
+
+            if (parsedBlock == null) {
+                result.append(clause, blockStart, blockEnd);
+                continue;
+            }
+
             if (parsedBlock.replacementString.equals("") && parsedBlock.nlgElement != null) {
                 parsedBlock.replacementString = realiser.realise((NLGElement) parsedBlock.nlgElement).getRealisation();
                 if (currentLanguage == ERLanguage.FRENCH && parsedBlock.isFrenchFeminineParticiple)
@@ -276,97 +562,95 @@ public class ExpressiveActionRealizer {
 
             addDutchReflexivePronoun(parsedBlock);
 
-            if (parsedBlock.isGhostBlock) {
-                result = result.replace(parsedBlock.blockString, "");
-            } else {
-                result = finaliseRealisation(parsedBlock, result);
+            if (!parsedBlock.isGhostBlock) {
+                appendRealisation(parsedBlock, result);
+                doCapitalise |= parsedBlock.doCapitalise;
             }
         }
-        Logger.tag("EAR").debug("Interpreted grammatical clause result: {}", result);
-
-        return result;
-    }
-
-    /**
-     * Perform the final realisation of a parsed block, such as capitalisation and elision for French if the canned text
-     * contains certain characters.
-     *
-     * @param parsedBlock the parsedBlock that will be realised
-     * @param result      the clause to which to add the realisation
-     * @return the resulting clause
-     */
-    private String finaliseRealisation(ParseInputBlockReturn parsedBlock, String result) {
+        result.append(clause, cannedTextStart, clause.length());
 
-        result = checkContractionAndElision(parsedBlock, result);
+        if (doCapitalise && result.length() > 0)
+            result.setCharAt(0, Character.toUpperCase(result.charAt(0)));
 
-        if (parsedBlock.doCapitalise)
-            result = capitalise(result);
+        Logger.tag("EAR").debug("Interpreted grammatical clause result: {}", result);
 
-        return result;
+        return result.toString();
     }
 
     /**
-     * Check and perform elision.
+     * Append the realisation of a parsed block to the clause, contracting it with the preceding canned text for French
+     * if the canned text ends with certain words.
      *
-     * @param parsedBlock the parsed block
-     * @param result      the result to update
-     * @return the result with the realised parsedBlock, elided if necessary
+     * @param parsedBlock the parsed block that will be appended
+     * @param result      the clause up to the block
      */
-    private String checkContractionAndElision(ParseInputBlockReturn parsedBlock, String result) {
-        if (currentLanguage != ERLanguage.FRENCH || result.indexOf(parsedBlock.blockString) <= 0) {
-            return result.replace(parsedBlock.blockString, parsedBlock.replacementString);
-        }
-
-        String precedingCannedText = result.split(Pattern.quote(parsedBlock.blockString))[0];
+    private void appendRealisation(ParseInputBlockReturn parsedBlock, StringBuilder result) {
+        String realisation = parsedBlock.replacementString;
 
-        if (precedingCannedText.endsWith(" à ")) {
-            result = handleStringStartingWithLeOrLes(parsedBlock, result, " à ", " au ", " aux ");
+        if (currentLanguage == ERLanguage.FRENCH && result.length() > 0) {
+            if (endsWith(result, " à ")) {
+                realisation = contractArticleWithCannedText(result, realisation, " à ", " au ", " aux ");
 
-        } else if (precedingCannedText.endsWith(" de ")
-                && !parsedBlock.type.equals("object")) {
-            result = handleStringStartingWithLeOrLes(parsedBlock, result, " de ", " du ", " des ");
+            } else if (endsWith(result, " de ")
+                    && !parsedBlock.type.equals("object")) {
+                realisation = contractArticleWithCannedText(result, realisation, " de ", " du ", " des ");
 
-        } else if (startsWithVowelOrIsolatedY(parsedBlock.replacementString)
-                && precedingCannedText.endsWith(" de")) {
-            result = contractWithCannedText(parsedBlock, result, " de", "", "d'");
+            } else if (!realisation.isEmpty() && startsWithVowelOrIsolatedY(realisation)
+                    && endsWith(result, " de")) {
+                realisation = contractWithCannedText(result, realisation, " de", "", " d'");
+            }
         }
 
-        result = result.replace(parsedBlock.blockString, parsedBlock.replacementString);
-        return result;
+        result.append(realisation);
     }
 
     /**
-     * Check whether the replacementString starts with 'le' or 'les' and handle accordingly w.r.t. contraction.
+     * Check whether the realisation starts with 'le' or 'les' and handle accordingly w.r.t. contraction.
      *
-     * @param parsedBlock         the parsedBlock
-     * @param result              the resulting string, which might get replaced
+     * @param result              the clause up to the block, of which the canned text suffix might be removed
+     * @param realisation         the realisation of the block
      * @param cannedTextSuffix    the string to find in the last part of the canned text
      * @param contractionSingular the singular form of the required contraction
      * @param contractionPlural   the plural form of the required contraction
-     * @return the resulting string, which has the contracted form if applicable
-     */
-    private String handleStringStartingWithLeOrLes(ParseInputBlockReturn parsedBlock, String result,
-                                                   String cannedTextSuffix, String contractionSingular, String contractionPlural) {
-        if (parsedBlock.replacementString.startsWith("le ")) {
-            result = contractWithCannedText(parsedBlock, result, cannedTextSuffix, "le ", contractionSingular);
-        } else if (parsedBlock.replacementString.startsWith("les ")) {
-            result = contractWithCannedText(parsedBlock, result, cannedTextSuffix, "les ", contractionPlural);
+     * @return the realisation to append, which is contracted if applicable
+     */
+    private String contractArticleWithCannedText(StringBuilder result, String realisation, String cannedTextSuffix,
+                                                 String contractionSingular, String contractionPlural) {
+        if (realisation.startsWith("le ")) {
+            return contractWithCannedText(result, realisation, cannedTextSuffix, "le ", contractionSingular);
+        } else if (realisation.startsWith("les ")) {
+            return contractWithCannedText(result, realisation, cannedTextSuffix, "les ", contractionPlural);
         }
-        return result;
+        return realisation;
     }
 
     /**
-     * Replace the last part of the canned text that precedes the grammatical block.
+     * Replace the last part of the canned text that precedes the grammatical block and the first part of the block by
+     * their contracted form.
      *
-     * @param parsedBlock      the parsedBlock
-     * @param result           the resulting string, which will be replaced
+     * @param result           the clause up to the block, which ends with the canned text suffix
+     * @param realisation      the realisation of the block, which starts with the block prefix
      * @param cannedTextSuffix the last part of the canned text
-     * @param blockPrefix      the first part of the realised parsedBlock
+     * @param blockPrefix      the first part of the realised block
      * @param contractedForm   the string to replace the above two strings. The 'sum' of suf+pref=contractedForm
-     * @return the string with the contraction
+     * @return the rest of the realisation to append
      */
-    private String contractWithCannedText(ParseInputBlockReturn parsedBlock, String result, String cannedTextSuffix, String blockPrefix, String contractedForm) {
-        return result.replace(cannedTextSuffix + parsedBlock.blockString, parsedBlock.replacementString.replace(blockPrefix, contractedForm));
+    private String contractWithCannedText(StringBuilder result, String realisation, String cannedTextSuffix,
+                                          String blockPrefix, String contractedForm) {
+        result.setLength(result.length() - cannedTextSuffix.length());
+        result.append(contractedForm);
+        return realisation.substring(blockPrefix.length());
+    }
+
+    private static boolean endsWith(StringBuilder text, String suffix) {
+        int start = text.length() - suffix.length();
+        if (start < 0)
+            return false;
+        for (int i = 0; i < suffix.length(); i++) {
+            if (text.charAt(start + i) != suffix.charAt(i))
+                return false;
+        }
+        return true;
     }
 
     /**
@@ -393,14 +677,8 @@ public class ExpressiveActionRealizer {
                 && parsedBlock.hasReflexive) {
             ERVerbPhrase element = (ERVerbPhrase) parsedBlock.nlgElement;
             if (element != null) {
-                Lexicon lexicon = nlgFactory.getLexicon();
-
-                Map<String, Object> pronounFeatures = new HashMap<>();
-                pronounFeatures.put(Feature.NUMBER, element.getFeature(Feature.NUMBER));
-                pronounFeatures.put(Feature.PERSON, element.getFeature(Feature.PERSON));
-                pronounFeatures.put(LexicalFeature.REFLEXIVE, true);
-
-                WordElement prefixElement = lexicon.getWord(LexicalCategory.PRONOUN, pronounFeatures);
+                WordElement prefixElement = wordLookup.getPronounTable()
+                        .getReflexivePronoun(element.getFeature(Feature.PERSON), element.getFeature(Feature.NUMBER));
 
                 if (prefixElement != null) {
                     String prefix = prefixElement.getBaseForm();
@@ -410,53 +688,16 @@ public class ExpressiveActionRealizer {
         }
     }
 
-    /**
-     * Parse a clause and retrieve all its input blocks ({subject: ...}, {verb: ...}, etc.).
-     *
-     * @param clause the full phrase string
-     * @return an array of input blocks
-     */
-    private ArrayList<InputBlock> getAllInputBlocks(String clause) {
-        ArrayList<InputBlock> result = new ArrayList<>();
-
-        int openingBraceIndex = clause.indexOf("{");
-        int braceNetCount = 0;
-
-        while (openingBraceIndex > -1) {
-
-            braceNetCount += 1;
-
-            int closingBraceIndex = clause.indexOf("}", openingBraceIndex);
-            if (closingBraceIndex > -1) {
-                braceNetCount -= 1;
-
-                String blockString = clause.substring(openingBraceIndex, closingBraceIndex + 1);
-                InputBlock block = new InputBlock(blockString);
-                block.parse();
-
-                result.add(block);
-            }
-
-            openingBraceIndex = clause.indexOf("{", openingBraceIndex + 1);
-        }
-
-        if (braceNetCount != 0) {
-            Logger.tag("EAR").error("Number of opening braces does not match number of closing braces in clause: {}", clause);
-            return null;
-        }
-
-        return result;
-    }
-
     /**
      * Parses the input blocks (e.g. {subject:}) and either populates the NLGElement with the word and its features or
      * returns a String that should be used instead of realising.
      *
      * @param inputBlock the input block
      * @param context    the current context
+     * @param session    the session with the mention history
      * @return ParseInputBlockReturn with the block to be replaced and a replacement (NLGElement or String)
      */
-    private ParseInputBlockReturn parseInputBlock(InputBlock inputBlock, ERContext context, SPhraseSpec phrase) {
+    private ParseInputBlockReturn parseInputBlock(InputBlock inputBlock, ERContext context, SPhraseSpec phrase, DiscourseSession session) {
 
         String elementType = inputBlock.getTypeString();
 
@@ -466,18 +707,18 @@ public class ExpressiveActionRealizer {
             boolean hasReflexive = false;
 
             // Detect and use reflexive pronouns
-            String[] verbParts = inputBlock.getValueString().split(" ");
+            String[] verbParts = inputBlock.getValueWords();
             for (String part : verbParts) {
 
-                WordElement word = lexicon.getWord(part, LexicalCategory.PRONOUN);
-                if (word != null && word.hasFeature(LexicalFeature.REFLEXIVE)) {
+                WordElement word = ERWordLookup.copyWord(wordLookup.getReflexivePronoun(part));
+                if (word != null) {
                     verb.setObject(word);
                     hasReflexive = true;
                 } else {
-                    verb.setHead(lexicon.getWord(part, LexicalCategory.VERB));
+                    verb.setHead(ERWordLookup.copyWord(wordLookup.getVerb(part)));
                 }
 
-                verb.copyFeaturesFromString(inputBlock.getMainNounFeatureString());
+                verb.copyFeatures(inputBlock.getMainNounFeatures());
 
             }
             phrase.setVerb(verb);
@@ -491,15 +732,15 @@ public class ExpressiveActionRealizer {
             boolean hasReflexive = false;
 
             // Detect and use reflexive pronouns
-            String[] verbParts = inputBlock.getValueString().split(" ");
+            String[] verbParts = inputBlock.getValueWords();
             for (String part : verbParts) {
 
-                WordElement word = lexicon.getWord(part, LexicalCategory.PRONOUN);
-                if (word != null && word.hasFeature(LexicalFeature.REFLEXIVE)) {
+                WordElement word = ERWordLookup.copyWord(wordLookup.getReflexivePronoun(part));
+                if (word != null) {
                     infiniteVerb.setObject(word);
                     hasReflexive = true;
                 } else {
-                    infiniteVerb.setHead(lexicon.getWord(part, LexicalCategory.VERB));
+                    infiniteVerb.setHead(ERWordLookup.copyWord(wordLookup.getVerb(part)));
                 }
             }
 
@@ -519,11 +760,11 @@ public class ExpressiveActionRealizer {
             ERVerbPhrase participleVerb = new ERVerbPhrase(phrase, nlgFactory);
 
             // Detect and use reflexive pronouns
-            String[] verbParts = inputBlock.getValueString().split(" ");
+            String[] verbParts = inputBlock.getValueWords();
 
             if (verbParts.length == 1) { // Skip multi-word complements. Those can only be noun phrases.
-                if (lexicon.hasWordFromVariant(verbParts[0], LexicalCategory.VERB)) {
-                    WordElement word = lexicon.getWord(verbParts[0], LexicalCategory.VERB);
+                if (wordLookup.hasVerbFromVariant(verbParts[0])) {
+                    WordElement word = ERWordLookup.copyWord(wordLookup.getVerb(verbParts[0]));
                     participleVerb.setHead(word);
 
                     // Copy person, number and gender. The participle should agree with the subject, but may resort to the verb phrase itself.
@@ -542,8 +783,8 @@ public class ExpressiveActionRealizer {
         }
 
         //// PARSE NOUN PHRASE ////
-        ERNounPhrase nounPhrase = new ERNounPhrase(nlgFactory, lexicon);
-        ERNounPhrase ownerNounPhrase = new ERNounPhrase(nlgFactory, lexicon);
+        ERNounPhrase nounPhrase = new ERNounPhrase(nlgFactory, wordLookup);
+        ERNounPhrase ownerNounPhrase = new ERNounPhrase(nlgFactory, wordLookup);
 
         // The key is one of the following: subject, object, indirectobject, compliment.
         // The value is in the form of: modifier |mainNoun| modifier < ownerNoun
@@ -556,16 +797,14 @@ public class ExpressiveActionRealizer {
         // {indirectobject: lazy |dog.plural| < %frank}
 
         NounPhraseBlockParser parser = new NounPhraseBlockParser(inputBlock, context, phrase, elementType, nounPhrase,
-                ownerNounPhrase, refExpGen, annotatedText).invoke();
+                ownerNounPhrase, session, annotatedText).invoke();
         if (parser == null) return null;
 
         String ownerNounString = parser.getOwnerNounString();
-        String premodifierString = parser.getPremodifierString();
-        String postmodifierString = parser.getPostmodifierString();
         ERMentionedEntity entity = parser.getEntity();
 
-        nounPhrase.addPremodifiers(premodifierString);
-        nounPhrase.addPostmodifiers(postmodifierString);
+        nounPhrase.addPremodifiers(inputBlock.getPremodifiers());
+        nounPhrase.addPostmodifiers(inputBlock.getPostmodifiers());
         if (!ownerNounString.equals(""))
             nounPhrase.addOwnerNoun(ownerNounPhrase);
 
@@ -592,21 +831,10 @@ public class ExpressiveActionRealizer {
     /**
      * Mark the next round of generating referring expressions as the start of a new 'thread', as described by McCoy &amp; Strube.
      * This will reset the mention distance counts and therefore use a definite description.
+     * Applies to the default session; use {@link DiscourseSession#markThreadChange()} for other sessions.
      */
     public void markThreadChange() {
-        refExpGen.doThreadChange();
-    }
-
-    /**
-     * Capitalise the first character of a string.
-     *
-     * @param original the lowercase string
-     * @return the capitalised string
-     */
-    private String capitalise(String original) {
-        if (original == null || original.equals(""))
-            return "";
-        return original.substring(0, 1).toUpperCase() + original.substring(1);
+        defaultSession.markThreadChange();
     }
 
     /**
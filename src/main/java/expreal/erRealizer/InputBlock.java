@@ -1,58 +1,134 @@
 package expreal.erRealizer;
 
 
+import expreal.erElements.ERFeatureSet;
 import org.tinylog.Logger;
 
 /**
  * Parse an input block {} and make its elements available as properties.
+ * Input blocks are parsed once when their template is compiled and are immutable afterwards, so that they can be
+ * shared by all realisations of the template. The arrays returned by the getters must not be modified.
  *
  * @author rfdj
  */
-class InputBlock {
-    private String rawString;
-    private String typeString;
-    private String valueString;
-    private String mainNounString;
-    private String mainNounFeatureString;
-    private String ownerNounString;
-    private String ownerNounFeatureString;
-    private String premodifierString;
-    private String postmodifierString;
+final class InputBlock {
+    private final String rawString;
+    private final String typeString;
+    private final String valueString;
+    private final String mainNounString;
+    private final String mainNounFeatureString;
+    private final String ownerNounString;
+    private final String ownerNounFeatureString;
+
+    /**
+     * The value split on spaces, e.g. the verb and its reflexive pronoun.
+     */
+    private final String[] valueWords;
+    private final ERFeatureSet mainNounFeatures;
+    private final ERFeatureSet ownerNounFeatures;
+    private final String[] premodifiers;
+    private final String[] postmodifiers;
 
     /**
      * Ghost blocks are only used to complete the grammatical tree, but are not realised in the output.
      * They serve merely to make sure agreement and similar tasks are performed correctly.
      * Delineated by {# type: value}.
      */
-    private boolean isGhostBlock = false;
+    private final boolean isGhostBlock;
 
+    /**
+     * Parse the input block and separate its string into the various properties.
+     *
+     * @param rawString the input block, including the braces
+     */
     InputBlock(String rawString) {
         this.rawString = rawString;
-        this.splitTypeAndValue();
-    }
 
-    /**
-     * Split the type (key) from the value and store them in their appropriate variables.
-     */
-    private void splitTypeAndValue() {
+        // Split the type (key) from the value
+        String typeString = null;
+        String valueString = null;
+        boolean isGhostBlock = false;
         if (rawString.startsWith("{") && rawString.endsWith("}")) {
             int typeStartIndex = 1;
             if (rawString.startsWith("{#")) {
                 isGhostBlock = true;
                 typeStartIndex = 2;
             }
-            String[] parts = rawString.split(":", 2);
-            if (parts.length > 1) {
-                typeString = parts[0]
-                        .substring(typeStartIndex)
-                        .trim();
-                valueString = parts[1]
-                        .substring(0, parts[1].length() - 1)
-                        .trim();
+            int colonIndex = rawString.indexOf(':');
+            if (colonIndex != -1) {
+                typeString = rawString.substring(typeStartIndex, colonIndex).trim();
+                valueString = rawString.substring(colonIndex + 1, rawString.length() - 1).trim();
+            } else {
+                Logger.tag("IB").error("No colon (:) between the type and the value of input block: {}", rawString);
+                valueString = "";
             }
         } else {
             valueString = rawString;
         }
+        this.typeString = typeString;
+        this.isGhostBlock = isGhostBlock;
+
+        // Get the individual parts from the valueString
+        String mainNounString;
+        String mainNounFeatureString = "";
+        String ownerNounString = "";
+        String ownerNounFeatureString = "";
+        String premodifierString = "";
+        String postmodifierString = "";
+
+        // Get ownernoun
+        int ownerIndex = valueString.indexOf('<');
+        if (ownerIndex != -1) { // There is an owner
+            ownerNounString = valueString.substring(ownerIndex + 1).trim(); // e.g. %julia
+            valueString = valueString.substring(0, ownerIndex);             // e.g. modifier |mainnoun| modifier
+        }
+
+        // Get the required features
+        int featureIndex = valueString.indexOf('.');
+        if (featureIndex != -1) { // There are features
+            mainNounFeatureString = valueString.substring(featureIndex + 1).replace("|", "").trim(); // e.g. plural
+            valueString = valueString.substring(0, featureIndex);                                  // e.g. dog
+        }
+
+        int ownerFeatureIndex = ownerNounString.indexOf('.');
+        if (ownerFeatureIndex != -1) { // There are features
+            ownerNounFeatureString = ownerNounString.substring(ownerFeatureIndex + 1).trim(); // e.g. poss.spec
+            ownerNounString = ownerNounString.substring(0, ownerFeatureIndex);               // e.g. julia
+        }
+
+        // Get the main noun and the modifiers
+        int firstPipeIndex = valueString.indexOf('|');
+        if (firstPipeIndex != -1) { // There are pipes
+            int secondPipeIndex = valueString.indexOf('|', firstPipeIndex + 1);
+            premodifierString = valueString.substring(0, firstPipeIndex).trim(); // e.g. grande
+
+            if (secondPipeIndex == -1) {
+                mainNounString = valueString.substring(firstPipeIndex + 1).trim();
+            } else {
+                mainNounString = valueString.substring(firstPipeIndex + 1, secondPipeIndex).trim(); // e.g. dog
+                postmodifierString = valueString.substring(secondPipeIndex + 1).trim();             // e.g. rouge
+                if (postmodifierString.indexOf('|') != -1)
+                    Logger.tag("IB").error("Too many pipes (|) in '{}' in input block: {}", valueString, rawString);
+            }
+        } else if (valueString.trim().contains(" ")) {
+            // If no noun is marked with pipes, assumes the last word before the '<' is the noun.
+            premodifierString = valueString.substring(0, valueString.trim().lastIndexOf(" "));  // e.g. grande
+            mainNounString = valueString.substring(valueString.trim().lastIndexOf(" ")).trim(); // e.g. dog
+        } else {
+            mainNounString = valueString.replace("\\|", "").trim();
+        }
+
+        this.valueString = valueString;
+        this.mainNounString = mainNounString;
+        this.mainNounFeatureString = mainNounFeatureString;
+        this.ownerNounString = ownerNounString;
+        this.ownerNounFeatureString = ownerNounFeatureString;
+
+        this.valueWords = TemplateScanner.splitWords(valueString);
+        this.mainNounFeatures = ERFeatureSet.parse(mainNounFeatureString);
+        this.ownerNounFeatures = ERFeatureSet.parse(ownerNounFeatureString);
+        this.premodifiers = TemplateScanner.splitWords(premodifierString);
+        this.postmodifiers = TemplateScanner.splitWords(postmodifierString);
     }
 
     String getRawString() {
@@ -67,6 +143,13 @@ class InputBlock {
         return valueString;
     }
 
+    /**
+     * @return the value split on spaces
+     */
+    String[] getValueWords() {
+        return valueWords;
+    }
+
     String getMainNounString() {
         return mainNounString;
     }
@@ -75,6 +158,10 @@ class InputBlock {
         return mainNounFeatureString;
     }
 
+    ERFeatureSet getMainNounFeatures() {
+        return mainNounFeatures;
+    }
+
     String getOwnerNounString() {
         return ownerNounString;
     }
@@ -83,12 +170,22 @@ class InputBlock {
         return ownerNounFeatureString;
     }
 
-    String getPremodifierString() {
-        return premodifierString;
+    ERFeatureSet getOwnerNounFeatures() {
+        return ownerNounFeatures;
+    }
+
+    /**
+     * @return the premodifiers split on spaces, possibly with empty strings
+     */
+    String[] getPremodifiers() {
+        return premodifiers;
     }
 
-    String getPostmodifierString() {
-        return postmodifierString;
+    /**
+     * @return the postmodifiers split on spaces, possibly with empty strings
+     */
+    String[] getPostmodifiers() {
+        return postmodifiers;
     }
 
     boolean isGhostBlock() {
@@ -96,58 +193,14 @@ class InputBlock {
     }
 
     /**
-     * Parse the input block and separate its string into the various properties.
+     * @return false if the block has no type, e.g. {subject}, and cannot be realised
      */
-    void parse() {
-        // Get the individual parts from the valueString
-        mainNounFeatureString = "";
-        ownerNounString = "";
-        ownerNounFeatureString = "";
-        premodifierString = "";
-        postmodifierString = "";
-
-        // Get ownernoun
-        String[] ownerNounSplit = valueString.split("<", 2);
-        if (ownerNounSplit.length > 1) { // There is an owner
-            valueString = ownerNounSplit[0];            // e.g. modifier |mainnoun| modifier
-            ownerNounString = ownerNounSplit[1].trim(); // e.g. %julia
-        }
-
-        // Get the required features
-        String[] mainNounFeatureStringSplit = valueString.split("\\.", 2);
-        if (mainNounFeatureStringSplit.length > 1) { // There are features
-            valueString = mainNounFeatureStringSplit[0];                    // e.g. dog
-            mainNounFeatureString = mainNounFeatureStringSplit[1].replace("|", "").trim(); // e.g. plural
-        }
-
-        String[] ownerNounFeatureStringSplit = ownerNounString.split("\\.", 2);
-        if (ownerNounFeatureStringSplit.length > 1) { // There are features
-            ownerNounString = ownerNounFeatureStringSplit[0];                   // e.g. julia
-            ownerNounFeatureString = ownerNounFeatureStringSplit[1].trim();     // e.g. poss.spec
-        }
-
-        // Get the main noun and the modifiers
-        String[] mainNounSplit = valueString.split("\\|", 3);
-        if (mainNounSplit.length > 1) { // There are pipes
-            premodifierString = mainNounSplit[0].trim();    // e.g. grande
-            mainNounString = mainNounSplit[1].trim();       // e.g. dog
-
-            if (mainNounSplit.length > 2) {
-                postmodifierString = mainNounSplit[2].trim();   // e.g. rouge
-                if (postmodifierString.contains("|"))
-                    Logger.tag("IB").error("Too many pipes (|) in '{}' in input block: {}", valueString, rawString);
-            }
-        } else if (valueString.trim().contains(" ")) {
-            // If no noun is marked with pipes, assumes the last word before the '<' is the noun.
-            premodifierString = valueString.substring(0, valueString.trim().lastIndexOf(" "));  // e.g. grande
-            mainNounString = valueString.substring(valueString.trim().lastIndexOf(" ")).trim(); // e.g. dog
-        } else {
-            mainNounString = valueString.replace("\\|", "").trim();
-        }
+    boolean isValid() {
+        return typeString != null || !rawString.startsWith("{");
     }
 
     @Override
     public String toString() {
         return "InputBlock('" + valueString + "', raw:'" + rawString + "')";
     }
-}
\ No newline at end of file
+}
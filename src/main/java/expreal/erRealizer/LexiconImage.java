@@ -0,0 +1,675 @@
+package expreal.erRealizer;
+
+import expreal.erElements.ERLanguage;
+import org.tinylog.Logger;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.WordElement;
+import simplenlg.lexicon.Lexicon;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A compact binary image of a SimpleNLG XML lexicon, so that the lexicon can be loaded without parsing the XML.
+ * <p>
+ * The image is written from a lexicon loaded from XML and contains the words exactly as that lexicon built them:
+ * a string table, the word records (base form, category, id, boolean features as a bitset and the other features),
+ * and the indexes by base form, by id and by variant. It is read through a memory mapping in one pass, which avoids
+ * parsing XML; the words and indexes are then copied onto the heap, so each process still holds its own copy of the
+ * lexicon.
+ * <p>
+ * Images are only used when the system property {@value #IMAGE_DIRECTORY_PROPERTY} is set. If no valid image exists
+ * for a lexicon, it is loaded from XML and its image is written for the next start. The images can also be created
+ * beforehand by running {@link #main(String[])}. An image records the checksum of its XML file and is ignored when the
+ * XML file has changed.
+ */
+public final class LexiconImage {
+
+    /**
+     * System property with the directory in which the lexicon images are stored.
+     */
+    public static final String IMAGE_DIRECTORY_PROPERTY = "expreal.lexicon.imageDirectory";
+
+    private static final int MAGIC = 0x45524C58; // ERLX
+    private static final int VERSION = 1;
+    private static final String EMPTY_LEXICON = "/expreal-empty-lexicon.xml";
+
+    private static final byte TYPE_STRING = 0;
+    private static final byte TYPE_BOOLEAN = 1;
+    private static final byte TYPE_INTEGER = 2;
+    private static final byte TYPE_ENUM = 3;
+
+    private LexiconImage() {
+    }
+
+    /**
+     * Write the images of the lexicons bundled with ExpReal.
+     *
+     * @param args the directory in which to write the images
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: LexiconImage <image directory>");
+            return;
+        }
+        File directory = new File(args[0]);
+        for (ERLanguage language : ERLanguage.values()) {
+            URI xmlUri = LexiconRegistry.getBundledLexiconUri(language);
+            Lexicon xmlLexicon = LexiconRegistry.loadXMLLexicon(language, xmlUri);
+            write(language, xmlUri, xmlLexicon, getImageFile(directory, xmlUri));
+        }
+    }
+
+    /**
+     * Load a lexicon from its image, if images are enabled and a valid image exists.
+     *
+     * @param language the language of the lexicon
+     * @param xmlUri   the location of the XML lexicon
+     * @return the lexicon, or null if it should be loaded from XML
+     */
+    static Lexicon loadIfAvailable(ERLanguage language, URI xmlUri) {
+        File directory = getImageDirectory();
+        if (directory == null || xmlUri == null)
+            return null;
+
+        File imageFile = getImageFile(directory, xmlUri);
+        if (!imageFile.isFile())
+            return null;
+
+        try {
+            Lexicon lexicon = read(language, imageFile, checksum(xmlUri));
+            if (lexicon != null)
+                Logger.tag("LEX").debug("Loaded lexicon for language '{}' from image {}", language, imageFile);
+            return lexicon;
+        } catch (IOException | RuntimeException e) {
+            Logger.tag("LEX").error("Could not read lexicon image {}: {}", imageFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Write the image of a lexicon that was loaded from XML, if images are enabled.
+     *
+     * @param language   the language of the lexicon
+     * @param xmlUri     the location of the XML lexicon
+     * @param xmlLexicon the lexicon loaded from the XML
+     */
+    static void writeIfEnabled(ERLanguage language, URI xmlUri, Lexicon xmlLexicon) {
+        File directory = getImageDirectory();
+        if (directory == null || xmlUri == null)
+            return;
+
+        try {
+            write(language, xmlUri, xmlLexicon, getImageFile(directory, xmlUri));
+        } catch (IOException | RuntimeException e) {
+            Logger.tag("LEX").error("Could not write lexicon image for language '{}': {}", language, e);
+        }
+    }
+
+    private static File getImageDirectory() {
+        String directory = System.getProperty(IMAGE_DIRECTORY_PROPERTY);
+        if (directory == null || directory.isEmpty())
+            return null;
+        return new File(directory);
+    }
+
+    private static File getImageFile(File directory, URI xmlUri) {
+        String path = xmlUri.toString();
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        return new File(directory, name + "-" + Integer.toHexString(path.hashCode()) + ".erlx");
+    }
+
+    private static long checksum(URI xmlUri) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream input = xmlUri.toURL().openStream()) {
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = input.read(buffer)) != -1)
+                crc.update(buffer, 0, read);
+        }
+        return crc.getValue();
+    }
+
+    ///// WRITING /////
+
+    /**
+     * Write the image of a lexicon. The lexicon is queried for all base forms and ids in the XML file and for all
+     * inflected forms of its words, so the image answers these lookups exactly like the lexicon.
+     */
+    private static void write(ERLanguage language, URI xmlUri, Lexicon xmlLexicon, File imageFile) throws IOException {
+        Logger.tag("LEX").debug("Writing image of lexicon for language '{}' to {}", language, imageFile);
+
+        Set<String> bases = new LinkedHashSet<>();
+        Set<String> ids = new LinkedHashSet<>();
+        readKeys(xmlUri, bases, ids);
+
+        List<WordElement> words = new ArrayList<>();
+        Map<WordElement, Integer> positions = new IdentityHashMap<>();
+
+        Map<String, int[]> baseIndex = new LinkedHashMap<>();
+        for (String base : bases)
+            putIndexEntry(baseIndex, base, xmlLexicon.getWords(base, LexicalCategory.ANY), words, positions);
+
+        Map<String, int[]> idIndex = new LinkedHashMap<>();
+        for (String id : ids)
+            putIndexEntry(idIndex, id, xmlLexicon.getWordsByID(id), words, positions);
+
+        // The variants are the base forms and inflected forms of the words
+        Set<String> variants = new LinkedHashSet<>();
+        for (WordElement word : words) {
+            variants.add(word.getBaseForm());
+            for (String featureName : word.getAllFeatureNames()) {
+                Object value = word.getFeature(featureName);
+                if (value instanceof String)
+                    variants.add((String) value);
+            }
+        }
+        Map<String, int[]> variantIndex = new LinkedHashMap<>();
+        for (String variant : variants)
+            putIndexEntry(variantIndex, variant, xmlLexicon.getWordsFromVariant(variant, LexicalCategory.ANY), words, positions);
+
+        StringTable strings = new StringTable();
+        List<String> booleanFeatures = getMostUsedBooleanFeatures(words);
+        for (String feature : booleanFeatures)
+            strings.indexOf(feature);
+
+        ByteArrayOutputStream wordBytes = new ByteArrayOutputStream();
+        DataOutputStream wordData = new DataOutputStream(wordBytes);
+        for (WordElement word : words)
+            writeWord(word, booleanFeatures, strings, wordData);
+
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream indexData = new DataOutputStream(indexBytes);
+        writeIndex(baseIndex, strings, indexData);
+        writeIndex(idIndex, strings, indexData);
+        writeIndex(variantIndex, strings, indexData);
+
+        File directory = imageFile.getAbsoluteFile().getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Cannot create directory " + directory);
+
+        // Write to a temporary file first, so that other processes never read a partial image
+        File temporaryFile = File.createTempFile(imageFile.getName(), ".tmp", directory);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporaryFile)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(language.ordinal());
+            output.writeLong(checksum(xmlUri));
+            strings.write(output);
+
+            output.writeInt(booleanFeatures.size());
+            for (String feature : booleanFeatures)
+                output.writeInt(strings.indexOf(feature));
+
+            output.writeInt(words.size());
+            wordBytes.writeTo(output);
+            indexBytes.writeTo(output);
+        }
+        try {
+            Files.move(temporaryFile.toPath(), imageFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile.toPath());
+        }
+    }
+
+    /**
+     * Collect the base forms and ids of the words in an XML lexicon.
+     */
+    private static void readKeys(URI xmlUri, Set<String> bases, Set<String> ids) throws IOException {
+        try (InputStream input = xmlUri.toURL().openStream()) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(input);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if (element.equals("base"))
+                        bases.add(reader.getElementText().trim());
+                    else if (element.equals("id"))
+                        ids.add(reader.getElementText().trim());
+                }
+            }
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void putIndexEntry(Map<String, int[]> index, String key, List<WordElement> foundWords,
+                                      List<WordElement> words, Map<WordElement, Integer> positions) {
+        if (foundWords == null || foundWords.isEmpty())
+            return;
+
+        int[] entry = new int[foundWords.size()];
+        for (int i = 0; i < entry.length; i++) {
+            WordElement word = foundWords.get(i);
+            Integer position = positions.get(word);
+            if (position == null) {
+                position = words.size();
+                words.add(word);
+                positions.put(word, position);
+            }
+            entry[i] = position;
+        }
+        index.put(key, entry);
+    }
+
+    /**
+     * Get the names of the features that are most often true, at most 64, so that they fit in a bitset.
+     */
+    private static List<String> getMostUsedBooleanFeatures(List<WordElement> words) {
+        final Map<String, Integer> counts = new HashMap<>();
+        for (WordElement word : words) {
+            for (String featureName : word.getAllFeatureNames()) {
+                if (Boolean.TRUE.equals(word.getFeature(featureName))) {
+                    Integer count = counts.get(featureName);
+                    counts.put(featureName, count == null ? 1 : count + 1);
+                }
+            }
+        }
+        List<String> features = new ArrayList<>(counts.keySet());
+        features.sort((first, second) -> counts.get(second) - counts.get(first));
+        return features.size() > Long.SIZE ? new ArrayList<>(features.subList(0, Long.SIZE)) : features;
+    }
+
+    private static void writeWord(WordElement word, List<String> booleanFeatures, StringTable strings, DataOutputStream output) throws IOException {
+        output.writeInt(strings.indexOf(word.getBaseForm()));
+        output.writeInt(word.getId() == null ? -1 : strings.indexOf(word.getId()));
+        output.writeInt(strings.indexOf(((Enum<?>) word.getCategory()).name()));
+
+        long bits = 0;
+        List<String> otherFeatures = new ArrayList<>();
+        for (String featureName : word.getAllFeatureNames()) {
+            int bit = booleanFeatures.indexOf(featureName);
+            if (bit > -1 && Boolean.TRUE.equals(word.getFeature(featureName)))
+                bits |= 1L << bit;
+            else
+                otherFeatures.add(featureName);
+        }
+        output.writeLong(bits);
+
+        output.writeInt(otherFeatures.size());
+        for (String featureName : otherFeatures) {
+            Object value = word.getFeature(featureName);
+            output.writeInt(strings.indexOf(featureName));
+            if (value instanceof String) {
+                output.writeByte(TYPE_STRING);
+                output.writeInt(strings.indexOf((String) value));
+            } else if (value instanceof Boolean) {
+                output.writeByte(TYPE_BOOLEAN);
+                output.writeInt((Boolean) value ? 1 : 0);
+            } else if (value instanceof Integer) {
+                output.writeByte(TYPE_INTEGER);
+                output.writeInt((Integer) value);
+            } else if (value instanceof Enum) {
+                Enum<?> constant = (Enum<?>) value;
+                output.writeByte(TYPE_ENUM);
+                output.writeInt(strings.indexOf(constant.getDeclaringClass().getName() + "#" + constant.name()));
+            } else {
+                // The image must be identical to the lexicon, so do not write an image that would miss features
+                throw new IOException("Unsupported value of feature '" + featureName + "' of word '" + word.getBaseForm() + "': " + value);
+            }
+        }
+    }
+
+    private static void writeIndex(Map<String, int[]> index, StringTable strings, DataOutputStream output) throws IOException {
+        output.writeInt(index.size());
+        for (Map.Entry<String, int[]> entry : index.entrySet()) {
+            output.writeInt(strings.indexOf(entry.getKey()));
+            output.writeInt(entry.getValue().length);
+            for (int position : entry.getValue())
+                output.writeInt(position);
+        }
+    }
+
+    /**
+     * The strings of the image, each stored once.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int indexOf(String string) {
+            Integer index = indexes.get(string);
+            if (index == null) {
+                index = strings.size();
+                strings.add(string);
+                indexes.put(string, index);
+            }
+            return index;
+        }
+
+        void write(DataOutputStream output) throws IOException {
+            byte[][] encoded = new byte[strings.size()][];
+            int length = 0;
+            for (int i = 0; i < encoded.length; i++) {
+                encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                length += encoded[i].length;
+            }
+
+            output.writeInt(encoded.length);
+            int offset = 0;
+            for (byte[] bytes : encoded) {
+                output.writeInt(offset);
+                offset += bytes.length;
+            }
+            output.writeInt(length);
+            for (byte[] bytes : encoded)
+                output.write(bytes);
+        }
+    }
+
+    ///// READING /////
+
+    /**
+     * Read a lexicon image.
+     *
+     * @param language         the language of the lexicon
+     * @param imageFile        the image
+     * @param expectedChecksum the checksum of the current XML file
+     * @return the lexicon, or null if the image is outdated
+     */
+    private static Lexicon read(ERLanguage language, File imageFile, long expectedChecksum) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(imageFile.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getInt() != language.ordinal()) {
+            Logger.tag("LEX").warn("Ignoring lexicon image with a different format or language: {}", imageFile);
+            return null;
+        }
+        if (buffer.getLong() != expectedChecksum) {
+            Logger.tag("LEX").debug("Ignoring outdated lexicon image: {}", imageFile);
+            return null;
+        }
+
+        // String table
+        int stringCount = buffer.getInt();
+        int[] offsets = new int[stringCount];
+        for (int i = 0; i < stringCount; i++)
+            offsets[i] = buffer.getInt();
+        int stringBytesLength = buffer.getInt();
+        byte[] stringBytes = new byte[stringBytesLength];
+        buffer.get(stringBytes);
+
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            int end = (i + 1 < stringCount) ? offsets[i + 1] : stringBytesLength;
+            strings[i] = new String(stringBytes, offsets[i], end - offsets[i], StandardCharsets.UTF_8);
+        }
+
+        String[] booleanFeatures = new String[buffer.getInt()];
+        for (int i = 0; i < booleanFeatures.length; i++)
+            booleanFeatures[i] = strings[buffer.getInt()];
+
+        // Words
+        Map<String, Object> enumConstants = new HashMap<>();
+        WordElement[] words = new WordElement[buffer.getInt()];
+        for (int i = 0; i < words.length; i++)
+            words[i] = readWord(buffer, strings, booleanFeatures, enumConstants);
+
+        ImageWords imageWords = new ImageWords(words,
+                readIndex(buffer, strings), readIndex(buffer, strings), readIndex(buffer, strings));
+
+        URI emptyLexiconUri;
+        try {
+            emptyLexiconUri = LexiconImage.class.getResource(EMPTY_LEXICON).toURI();
+        } catch (Exception e) {
+            throw new IOException("Cannot get URI of resource: " + EMPTY_LEXICON, e);
+        }
+
+        switch (language) {
+            case DUTCH:
+                return new DutchImageLexicon(emptyLexiconUri, imageWords);
+            case FRENCH:
+                return new FrenchImageLexicon(emptyLexiconUri, imageWords);
+            case ENGLISH:
+            default:
+                return new EnglishImageLexicon(emptyLexiconUri, imageWords);
+        }
+    }
+
+    private static WordElement readWord(ByteBuffer buffer, String[] strings, String[] booleanFeatures, Map<String, Object> enumConstants) throws IOException {
+        String base = strings[buffer.getInt()];
+        int idIndex = buffer.getInt();
+        LexicalCategory category = LexicalCategory.valueOf(strings[buffer.getInt()]);
+        WordElement word = new WordElement(base, category, idIndex == -1 ? null : strings[idIndex]);
+
+        long bits = buffer.getLong();
+        for (int bit = 0; bit < booleanFeatures.length; bit++) {
+            if ((bits & (1L << bit)) != 0)
+                word.setFeature(booleanFeatures[bit], Boolean.TRUE);
+        }
+
+        int featureCount = buffer.getInt();
+        for (int i = 0; i < featureCount; i++) {
+            String featureName = strings[buffer.getInt()];
+            byte type = buffer.get();
+            int value = buffer.getInt();
+            switch (type) {
+                case TYPE_STRING:
+                    word.setFeature(featureName, strings[value]);
+                    break;
+                case TYPE_BOOLEAN:
+                    word.setFeature(featureName, Boolean.valueOf(value == 1));
+                    break;
+                case TYPE_INTEGER:
+                    word.setFeature(featureName, Integer.valueOf(value));
+                    break;
+                case TYPE_ENUM:
+                    word.setFeature(featureName, getEnumConstant(strings[value], enumConstants));
+                    break;
+                default:
+                    throw new IOException("Unknown feature type " + type);
+            }
+        }
+        return word;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object getEnumConstant(String qualifiedName, Map<String, Object> enumConstants) throws IOException {
+        Object constant = enumConstants.get(qualifiedName);
+        if (constant == null) {
+            int separator = qualifiedName.indexOf('#');
+            try {
+                Class enumClass = Class.forName(qualifiedName.substring(0, separator));
+                constant = Enum.valueOf(enumClass, qualifiedName.substring(separator + 1));
+            } catch (ClassNotFoundException | IllegalArgumentException e) {
+                throw new IOException("Unknown feature value: " + qualifiedName, e);
+            }
+            enumConstants.put(qualifiedName, constant);
+        }
+        return constant;
+    }
+
+    private static Map<String, int[]> readIndex(ByteBuffer buffer, String[] strings) {
+        int size = buffer.getInt();
+        Map<String, int[]> index = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            String key = strings[buffer.getInt()];
+            int[] positions = new int[buffer.getInt()];
+            for (int j = 0; j < positions.length; j++)
+                positions[j] = buffer.getInt();
+            index.put(key, positions);
+        }
+        return index;
+    }
+
+    /**
+     * The words of an image and their indexes, answering the lookups of the lexicon.
+     */
+    private static final class ImageWords {
+
+        /**
+         * The lookups of an image lexicon before its words are set, i.e. while its superclass is constructed.
+         */
+        private static final ImageWords EMPTY = new ImageWords(new WordElement[0],
+                Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap());
+
+        private final WordElement[] words;
+        private final Map<String, int[]> baseIndex;
+        private final Map<String, int[]> idIndex;
+        private final Map<String, int[]> variantIndex;
+
+        ImageWords(WordElement[] words, Map<String, int[]> baseIndex, Map<String, int[]> idIndex, Map<String, int[]> variantIndex) {
+            this.words = words;
+            this.baseIndex = baseIndex;
+            this.idIndex = idIndex;
+            this.variantIndex = variantIndex;
+        }
+
+        static ImageWords of(ImageWords words) {
+            return words == null ? EMPTY : words;
+        }
+
+        List<WordElement> lookup(Map<String, int[]> index, String key, LexicalCategory category) {
+            List<WordElement> result = new ArrayList<>();
+            int[] positions = index.get(key);
+            if (positions == null)
+                return result;
+
+            for (int position : positions) {
+                WordElement word = words[position];
+                if (category == null || category == LexicalCategory.ANY || word.getCategory() == category)
+                    result.add(word);
+            }
+            return result;
+        }
+
+        List<WordElement> getWords(String baseForm, LexicalCategory category) {
+            return lookup(baseIndex, baseForm, category);
+        }
+
+        List<WordElement> getWordsByID(String id) {
+            return lookup(idIndex, id, LexicalCategory.ANY);
+        }
+
+        List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+            return lookup(variantIndex, variant, category);
+        }
+
+        /**
+         * Get the first word of a category that has all the given features.
+         */
+        WordElement getWord(LexicalCategory category, Map<String, Object> features) {
+            for (WordElement word : words) {
+                if (word.getCategory() != category)
+                    continue;
+                boolean isMatch = true;
+                for (Map.Entry<String, Object> feature : features.entrySet()) {
+                    if (!Objects.equals(word.getFeature(feature.getKey()), feature.getValue())) {
+                        isMatch = false;
+                        break;
+                    }
+                }
+                if (isMatch)
+                    return word;
+            }
+            return null;
+        }
+    }
+
+    /*
+     * The lexicons read from an image extend the XML lexicon of their language, so that their language-specific
+     * behaviour is kept. They are constructed from an empty XML lexicon and only forward the lookups to ImageWords,
+     * which answers them from the image.
+     */
+
+    private static final class EnglishImageLexicon extends simplenlg.lexicon.english.XMLLexicon {
+        private final ImageWords words;
+
+        EnglishImageLexicon(URI emptyLexiconUri, ImageWords words) {
+            super(emptyLexiconUri);
+            this.words = words;
+        }
+
+        @Override
+        public List<WordElement> getWords(String baseForm, LexicalCategory category) {
+            return ImageWords.of(words).getWords(baseForm, category);
+        }
+
+        @Override
+        public List<WordElement> getWordsByID(String id) {
+            return ImageWords.of(words).getWordsByID(id);
+        }
+
+        @Override
+        public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+            return ImageWords.of(words).getWordsFromVariant(variant, category);
+        }
+
+        @Override
+        public WordElement getWord(LexicalCategory category, Map<String, Object> features) {
+            return ImageWords.of(words).getWord(category, features);
+        }
+    }
+
+    private static final class FrenchImageLexicon extends simplenlg.lexicon.french.XMLLexicon {
+        private final ImageWords words;
+
+        FrenchImageLexicon(URI emptyLexiconUri, ImageWords words) {
+            super(emptyLexiconUri);
+            this.words = words;
+        }
+
+        @Override
+        public List<WordElement> getWords(String baseForm, LexicalCategory category) {
+            return ImageWords.of(words).getWords(baseForm, category);
+        }
+
+        @Override
+        public List<WordElement> getWordsByID(String id) {
+            return ImageWords.of(words).getWordsByID(id);
+        }
+
+        @Override
+        public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+            return ImageWords.of(words).getWordsFromVariant(variant, category);
+        }
+
+        @Override
+        public WordElement getWord(LexicalCategory category, Map<String, Object> features) {
+            return ImageWords.of(words).getWord(category, features);
+        }
+    }
+
+    private static final class DutchImageLexicon extends simplenlg.lexicon.dutch.XMLLexicon {
+        private final ImageWords words;
+
+        DutchImageLexicon(URI emptyLexiconUri, ImageWords words) {
+            super(emptyLexiconUri);
+            this.words = words;
+        }
+
+        @Override
+        public List<WordElement> getWords(String baseForm, LexicalCategory category) {
+            return ImageWords.of(words).getWords(baseForm, category);
+        }
+
+        @Override
+        public List<WordElement> getWordsByID(String id) {
+            return ImageWords.of(words).getWordsByID(id);
+        }
+
+        @Override
+        public List<WordElement> getWordsFromVariant(String variant, LexicalCategory category) {
+            return ImageWords.of(words).getWordsFromVariant(variant, category);
+        }
+
+        @Override
+        public WordElement getWord(LexicalCategory category, Map<String, Object> features) {
+            return ImageWords.of(words).getWord(category, features);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package expreal.erRealizer;
+
+import expreal.erElements.ERLanguage;
+import expreal.erElements.ERWordLookup;
+import org.tinylog.Logger;
+import simplenlg.lexicon.Lexicon;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Lexicons shared by all realizers of the process. A lexicon is loaded on first use and kept as long as at least one
+ * realizer uses it, so creating many realizers for the same language only loads its lexicon once.
+ * <p>
+ * The lexicons are shared between threads and must be treated as read-only: words retrieved from them must be copied
+ * before their features are changed.
+ */
+public final class LexiconRegistry {
+
+    private static final Map<Key, Entry> entries = new HashMap<>();
+
+    private LexiconRegistry() {
+    }
+
+    /**
+     * Get the bundled lexicon of a language. Each call must be matched by a call to {@link #release(Lexicon)}.
+     *
+     * @param language the language of the lexicon
+     * @return the shared lexicon
+     */
+    public static Lexicon acquire(ERLanguage language) {
+        return acquire(language, null);
+    }
+
+    /**
+     * Get a lexicon of a language. Each call must be matched by a call to {@link #release(Lexicon)}.
+     *
+     * @param language   the language of the lexicon, which determines how its XML file is read
+     * @param lexiconUri the location of the XML lexicon, or null for the lexicon bundled with ExpReal
+     * @return the shared lexicon
+     */
+    public static Lexicon acquire(ERLanguage language, URI lexiconUri) {
+        if (language == null)
+            language = ERLanguage.DEFAULT_LANGUAGE;
+
+        Entry entry;
+        Key key = new Key(language, lexiconUri);
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key);
+                entries.put(key, entry);
+            }
+            entry.references++;
+        }
+
+        try {
+            return entry.getLexicon();
+        } catch (RuntimeException | Error e) {
+            // The caller does not get a lexicon to release, so the reference is released here
+            synchronized (entries) {
+                entry.references--;
+                if (entry.references == 0 && entries.get(key) == entry)
+                    entries.remove(key);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Indicate that a lexicon acquired from this registry is no longer used. The lexicon is unloaded when it is not used
+     * by anyone anymore.
+     *
+     * @param lexicon the lexicon that was acquired
+     */
+    public static void release(Lexicon lexicon) {
+        if (lexicon == null)
+            return;
+
+        synchronized (entries) {
+            for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext(); ) {
+                Entry entry = iterator.next();
+                if (entry.lexicon == lexicon) {
+                    entry.references--;
+                    if (entry.references == 0) {
+                        Logger.tag("LEX").debug("Unloading lexicon for language '{}'", entry.key.language);
+                        iterator.remove();
+                    }
+                    return;
+                }
+            }
+        }
+        Logger.tag("LEX").warn("Released a lexicon that was not acquired from the registry: {}", lexicon);
+    }
+
+    /**
+     * Get the lookup of the words in a lexicon, which is shared by all realizers using the lexicon.
+     *
+     * @param lexicon the lexicon that was acquired
+     * @return the shared lookup, or a new lookup if the lexicon was not acquired from the registry
+     */
+    static ERWordLookup getWordLookup(Lexicon lexicon) {
+        synchronized (entries) {
+            for (Entry entry : entries.values()) {
+                if (entry.lexicon == lexicon)
+                    return entry.getWordLookup();
+            }
+        }
+        return new ERWordLookup(lexicon);
+    }
+
+    /**
+     * Get the number of realizers using a lexicon.
+     *
+     * @param language   the language of the lexicon
+     * @param lexiconUri the location of the XML lexicon, or null for the lexicon bundled with ExpReal
+     * @return the number of references, 0 if the lexicon is not loaded
+     */
+    public static int getReferenceCount(ERLanguage language, URI lexiconUri) {
+        synchronized (entries) {
+            Entry entry = entries.get(new Key(language, lexiconUri));
+            return entry == null ? 0 : entry.references;
+        }
+    }
+
+    /**
+     * Loads the lexicon for the selected language. Defaults to English.
+     * Uses the binary image of the lexicon if images are enabled, see {@link LexiconImage}.
+     *
+     * @param language   the language for which to load the lexicon
+     * @param lexiconUri the location of the XML lexicon, or null for the lexicon bundled with ExpReal
+     * @return the lexicon
+     */
+    private static Lexicon loadLexicon(ERLanguage language, URI lexiconUri) {
+        URI xmlUri = lexiconUri != null ? lexiconUri : getBundledLexiconUri(language);
+
+        Lexicon lexicon = LexiconImage.loadIfAvailable(language, xmlUri);
+        if (lexicon == null) {
+            lexicon = loadXMLLexicon(language, xmlUri);
+            LexiconImage.writeIfEnabled(language, xmlUri, lexicon);
+        }
+        return lexicon;
+    }
+
+    /**
+     * Loads an XML lexicon.
+     *
+     * @param language the language of the lexicon
+     * @param xmlUri   the location of the XML lexicon
+     * @return the lexicon
+     */
+    static Lexicon loadXMLLexicon(ERLanguage language, URI xmlUri) {
+        Logger.tag("LEX").debug("Loading lexicon for language '{}'...", language);
+        switch (language) {
+            case DUTCH:
+                return new simplenlg.lexicon.dutch.XMLLexicon(xmlUri);
+            case FRENCH:
+                return new simplenlg.lexicon.french.XMLLexicon(xmlUri);
+            case ENGLISH:
+            default:
+                return new simplenlg.lexicon.english.XMLLexicon(xmlUri);
+        }
+    }
+
+    /**
+     * Get the location of the lexicon bundled with ExpReal for a language.
+     *
+     * @param language the language
+     * @return URI of the XML lexicon
+     */
+    static URI getBundledLexiconUri(ERLanguage language) {
+        switch (language) {
+            case DUTCH:
+                return getResourceUri("/expreal-simplenlg-dutch-lexicon-8k-default.xml");
+            case FRENCH:
+                return getResourceUri("/expreal-simplenlg-french-lexicon.xml");
+            case ENGLISH:
+            default:
+                return getResourceUri("/expreal-simplenlg-english-lexicon.xml");
+        }
+    }
+
+    /**
+     * Gets a resource based on a file string.
+     *
+     * @param resourceFileLocation relative resource location
+     * @return URI of resource
+     */
+    private static URI getResourceUri(String resourceFileLocation) {
+        URL resource = LexiconRegistry.class.getResource(resourceFileLocation);
+        URI resourceURI = null;
+
+        try {
+            resourceURI = resource.toURI();
+        } catch (Exception e) {
+            Logger.tag("LEX").error("Cannot get URI of resource: {}: {}", resourceFileLocation, e);
+        }
+        return resourceURI;
+    }
+
+    private static final class Key {
+        final ERLanguage language;
+        final URI lexiconUri;
+
+        Key(ERLanguage language, URI lexiconUri) {
+            this.language = language;
+            this.lexiconUri = lexiconUri;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return language == key.language && Objects.equals(lexiconUri, key.lexiconUri);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(language, lexiconUri);
+        }
+    }
+
+    private static final class Entry {
+        final Key key;
+
+        /**
+         * Guarded by the lock on the entries map.
+         */
+        int references;
+        volatile Lexicon lexicon;
+        private ERWordLookup wordLookup;
+
+        Entry(Key key) {
+            this.key = key;
+        }
+
+        /**
+         * Get the lexicon, loading it if this is the first use. Lexicons of different entries are loaded in parallel.
+         */
+        synchronized Lexicon getLexicon() {
+            if (lexicon == null)
+                lexicon = loadLexicon(key.language, key.lexiconUri);
+            return lexicon;
+        }
+
+        /**
+         * Get the lookup of the words of the lexicon. Its pronoun table is filled when the lookup is created, so that
+         * the first realisations do not have to.
+         */
+        synchronized ERWordLookup getWordLookup() {
+            if (wordLookup == null) {
+                wordLookup = new ERWordLookup(getLexicon());
+                wordLookup.getPronounTable();
+            }
+            return wordLookup;
+        }
+    }
+}
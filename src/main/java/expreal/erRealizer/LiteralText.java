@@ -0,0 +1,167 @@
+package expreal.erRealizer;
+
+import expreal.erElements.ERContext;
+import expreal.erElements.ERPerson;
+
+import java.util.*;
+
+/**
+ * The output of an utterance that does not depend on the context, realised once when loading the authored templates.
+ * <p>
+ * An utterance is literal if it has no $variables, no grammatical blocks and no #switchDialog, and all its %variables
+ * refer to entries with a single, unconditional template that is literal itself. Expanding such a variable only
+ * depends on the context when the context has a person or argument with the same name, which is checked before the
+ * literal text is used. The mention distances that would have been updated while expanding the variables are still
+ * updated, in the same order.
+ */
+final class LiteralText {
+    private final String text;
+
+    /**
+     * The expanded %variables, in the order in which their mention distance is updated.
+     */
+    private final String[] mentionedVariables;
+
+    /**
+     * The distinct expanded %variables, which could be shadowed by persons or arguments of the context.
+     */
+    private final String[] variables;
+
+    private LiteralText(String text, List<String> mentionedVariables) {
+        this.text = text;
+        this.mentionedVariables = mentionedVariables.toArray(new String[0]);
+        this.variables = new LinkedHashSet<>(mentionedVariables).toArray(new String[0]);
+    }
+
+    String getText() {
+        return text;
+    }
+
+    /**
+     * Checks whether the context changes the expansion of any of the variables, in which case the literal text cannot
+     * be used.
+     *
+     * @param context the context in which the utterance is interpreted
+     * @return true if a person or argument of the context has the name of a variable
+     */
+    boolean isShadowed(ERContext context) {
+        for (String variable : variables) {
+            if (context.getPersonByRealisedName(variable) != null || context.getArgument(variable) != null)
+                return true;
+            ERPerson person = context.getPerson(variable);
+            if (person != null && person.hasRealisedNames())
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Update the mention distances as interpreting the utterance would have done.
+     *
+     * @param refExpGen the generator with the mention history
+     */
+    void updateMentionDistances(ReferringExpressionGenerator refExpGen) {
+        for (String variable : mentionedVariables)
+            refExpGen.updateMentionDistance(variable);
+    }
+
+    /**
+     * Realises the literal utterances of all templates of a collection.
+     */
+    static final class Folder {
+        private final AuthoredTemplatesCollection collection;
+
+        /**
+         * The literal text of each interpreted utterance text, or an empty optional if it is not literal.
+         */
+        private final Map<String, Optional<LiteralText>> results = new HashMap<>();
+        private final Set<String> inProgress = new HashSet<>();
+
+        Folder(AuthoredTemplatesCollection collection) {
+            this.collection = collection;
+        }
+
+        /**
+         * Get the literal text of an utterance.
+         *
+         * @param utterance the utterance
+         * @return the literal text, or null if the output of the utterance depends on the context
+         */
+        LiteralText fold(CompiledTemplate.Utterance utterance) {
+            if (utterance.isSwitchDialog() || utterance.getDollarVariables().length > 0)
+                return null;
+            CompiledText compiledText = utterance.getCompiledText();
+            if (compiledText == null || compiledText.hasGrammaticalBlocks())
+                return null;
+            return fold(compiledText.getText());
+        }
+
+        private LiteralText fold(String text) {
+            Optional<LiteralText> result = results.get(text);
+            if (result != null)
+                return result.orElse(null);
+
+            if (!inProgress.add(text)) // the text refers to itself
+                return null;
+            LiteralText literalText = expandVariables(text);
+            inProgress.remove(text);
+
+            results.put(text, Optional.ofNullable(literalText));
+            return literalText;
+        }
+
+        /**
+         * Expands the %variables the same way as {@link AnnotatedText} does while interpreting a text.
+         *
+         * @param text the text of the utterance
+         * @return the literal text, or null if a variable cannot be expanded without the context
+         */
+        private LiteralText expandVariables(String text) {
+            List<String> mentionedVariables = new ArrayList<>();
+            int currentVariablePrefixIndex;
+            int currentIndex = 0;
+
+            do {
+                currentVariablePrefixIndex = text.indexOf(ERconstants.variablePrefix, currentIndex);
+
+                if (currentVariablePrefixIndex != -1) {
+                    String currentVariableString = Tools.getTextVariable(text, currentVariablePrefixIndex + 1);
+
+                    if (currentVariableString.equals("")
+                            || currentVariableString.equals("speaker")
+                            || currentVariableString.equals("listener"))
+                        return null;
+
+                    LiteralText target = foldEntry(currentVariableString);
+                    if (target == null)
+                        return null;
+
+                    mentionedVariables.addAll(Arrays.asList(target.mentionedVariables));
+                    text = text.replace(ERconstants.variablePrefix + currentVariableString, target.text);
+                    currentIndex = currentVariablePrefixIndex + target.text.length();
+                    mentionedVariables.add(currentVariableString);
+                }
+            } while (currentVariablePrefixIndex != -1);
+
+            return new LiteralText(text, mentionedVariables);
+        }
+
+        /**
+         * Get the literal text of the entry a variable refers to.
+         *
+         * @param entry the name of the entry
+         * @return the literal text, or null if the entry does not have a single unconditional literal template
+         */
+        private LiteralText foldEntry(String entry) {
+            Vector<ConditionalAnnotatedText> condTexts = collection.getConditionalAnnotatedTexts(entry);
+            if (condTexts == null || condTexts.size() != 1)
+                return null;
+
+            ConditionalAnnotatedText condText = condTexts.get(0);
+            if (!condText.conditions.isEmpty() || condText.isUserDefinedCondition())
+                return null;
+
+            return fold(condText.getCompiledTemplate().getWholeText());
+        }
+    }
+}
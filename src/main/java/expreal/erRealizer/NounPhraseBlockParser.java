@@ -22,10 +22,9 @@ public class NounPhraseBlockParser {
     private ERNounPhrase nounPhrase;
     private ERNounPhrase ownerNounPhrase;
     private ReferringExpressionGenerator refExpGen;
+    private DiscourseSession session;
     private AnnotatedText annotatedText;
     private String ownerNounString;
-    private String premodifierString;
-    private String postmodifierString;
     private ERMentionedEntity entity;
 
     /**
@@ -37,17 +36,18 @@ public class NounPhraseBlockParser {
      * @param elementType the type of element, e.g. 'subject' or 'object'
      * @param nounPhrase an empty noun phrase to build up
      * @param ownerNounPhrase an empty noun phrase to build up for the owner noun
-     * @param refExpGen the referring expression generator with the mention history
+     * @param session the session with the mention history
      * @param annotatedText the original annotated text
      */
-    public NounPhraseBlockParser(InputBlock inputBlock, ERContext context, SPhraseSpec phrase, String elementType, ERNounPhrase nounPhrase, ERNounPhrase ownerNounPhrase, ReferringExpressionGenerator refExpGen, AnnotatedText annotatedText) {
+    public NounPhraseBlockParser(InputBlock inputBlock, ERContext context, SPhraseSpec phrase, String elementType, ERNounPhrase nounPhrase, ERNounPhrase ownerNounPhrase, DiscourseSession session, AnnotatedText annotatedText) {
         this.inputBlock = inputBlock;
         this.context = context;
         this.phrase = phrase;
         this.elementType = elementType;
         this.nounPhrase = nounPhrase;
         this.ownerNounPhrase = ownerNounPhrase;
-        this.refExpGen = refExpGen;
+        this.refExpGen = session.getRefExpGen();
+        this.session = session;
         this.annotatedText = annotatedText;
     }
 
@@ -55,14 +55,6 @@ public class NounPhraseBlockParser {
         return ownerNounString;
     }
 
-    public String getPremodifierString() {
-        return premodifierString;
-    }
-
-    public String getPostmodifierString() {
-        return postmodifierString;
-    }
-
     public ERMentionedEntity getEntity() {
         return entity;
     }
@@ -75,11 +67,7 @@ public class NounPhraseBlockParser {
      */
     public NounPhraseBlockParser invoke() {
         String mainNounString = inputBlock.getMainNounString();
-        String mainNounFeatureString = inputBlock.getMainNounFeatureString();
         ownerNounString = inputBlock.getOwnerNounString();
-        String ownerNounFeatureString = inputBlock.getOwnerNounFeatureString();
-        premodifierString = inputBlock.getPremodifierString();
-        postmodifierString = inputBlock.getPostmodifierString();
 
         // Initialize mention distance entry. The key is based on main noun and owner information.
         String mentionDistanceKey = mainNounString + "<" + ownerNounString;
@@ -114,14 +102,14 @@ public class NounPhraseBlockParser {
                 personGender = Gender.valueOf(personFromContext.getGender().toString());
 
                 // Get the name corresponding to the %variable
-                personName = annotatedText.selectAnnotatedText(mainNounString, context);
+                personName = annotatedText.selectAnnotatedText(mainNounString, context, session);
 
             } else {
                 personName = mainNounString;
             }
 
             nounPhrase.populateWith(personName, personGender);
-            nounPhrase.copyFeaturesFromString(mainNounFeatureString);
+            nounPhrase.copyFeatures(inputBlock.getMainNounFeatures());
             nounPhrase.addToPhrase(phrase, elementType);
 
             // PRONOMINALISATION
@@ -161,7 +149,7 @@ public class NounPhraseBlockParser {
                 personGender = Gender.valueOf(personFromContext.getGender().toString());
 
                 // Get the name corresponding to the %variable
-                personName = annotatedText.selectAnnotatedText(ownerNounString, context);
+                personName = annotatedText.selectAnnotatedText(ownerNounString, context, session);
 
             } else {
                 personName = ownerNounString;
@@ -170,7 +158,7 @@ public class NounPhraseBlockParser {
             ownerNounPhrase.populateWith(personName, personGender);
 
             // Add the SimpleNLG features
-            ownerNounPhrase.copyFeaturesFromString(ownerNounFeatureString);
+            ownerNounPhrase.copyFeatures(inputBlock.getOwnerNounFeatures());
             ownerNounPhrase.setFeature(Feature.POSSESSIVE, true);
 
             // PRONOMINALISATION
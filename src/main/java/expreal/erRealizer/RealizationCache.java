@@ -0,0 +1,190 @@
+package expreal.erRealizer;
+
+import expreal.erElements.ERContext;
+import expreal.erElements.ERLanguage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded cache of realised texts, which can be set on an {@link ExpressiveActionRealizer} to skip realising a
+ * template again in the same context.
+ * <p>
+ * An entry is keyed by the selected template and a fingerprint of only the values of the context that the template
+ * depends on, see {@link TemplateDependencies}.
+ * Only realisations that give the same result each time are stored: those that do not pick between variants of the
+ * templates they expand, and that do not use the mention history, i.e. have no grammatical blocks. The choice between
+ * variants of the template itself is made before the cache is used, so it still follows the random generator of the
+ * session. When an entry is reused, the mention history of the session is updated as the realisation would have done.
+ * <p>
+ * When the cache is full, the least recently used entry is removed. Entries also expire after a time to live.
+ */
+public final class RealizationCache {
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final Map<Key, CachedTexts> entries;
+    private long hitCount, missCount;
+
+    /**
+     * Create a cache without a time to live.
+     *
+     * @param maximumSize the maximum number of entries
+     */
+    public RealizationCache(int maximumSize) {
+        this(maximumSize, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param maximumSize the maximum number of entries
+     * @param timeToLive  the time after which an entry expires
+     * @param unit        the unit of the time to live
+     */
+    public RealizationCache(int maximumSize, long timeToLive, TimeUnit unit) {
+        if (maximumSize < 1)
+            throw new IllegalArgumentException("The maximum size must be at least 1, but was " + maximumSize);
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.entries = new LinkedHashMap<Key, CachedTexts>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedTexts> eldest) {
+                return size() > RealizationCache.this.maximumSize;
+            }
+        };
+    }
+
+    /**
+     * Create the key of a realisation.
+     *
+     * @param template   the selected template
+     * @param language   the language of the realizer
+     * @param context    the local context in which the template is realised
+     * @param collection the collection with the dependencies of the templates
+     * @return the key
+     */
+    static Key createKey(CompiledTemplate template, ERLanguage language, ERContext context,
+                         AuthoredTemplatesCollection collection) {
+        List<Object> fingerprint = new ArrayList<>();
+        collection.getDependencies(template).addFingerprint(context, collection, fingerprint, new HashSet<>());
+        return new Key(template, language, fingerprint);
+    }
+
+    /**
+     * Get the entry of a realisation.
+     *
+     * @param key the key of the realisation
+     * @return the entry, or null if there is no entry or it has expired
+     */
+    synchronized CachedTexts get(Key key) {
+        CachedTexts entry = entries.get(key);
+        if (entry != null && System.nanoTime() - entry.createdNanos > timeToLiveNanos) {
+            entries.remove(key);
+            entry = null;
+        }
+        if (entry == null)
+            missCount++;
+        else
+            hitCount++;
+        return entry;
+    }
+
+    /**
+     * Store the result of a realisation.
+     *
+     * @param key      the key of the realisation
+     * @param texts    the realised texts
+     * @param mentions the keys of which the mention distance was updated, in order
+     */
+    synchronized void put(Key key, List<String> texts, List<String> mentions) {
+        entries.put(key, new CachedTexts(texts.toArray(new String[0]), mentions.toArray(new String[0]), System.nanoTime()));
+    }
+
+    /**
+     * Remove all entries, e.g. after the templates or the lexicon have changed.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RealizationCache{size: " + entries.size() + ", maximumSize: " + maximumSize
+                + ", hits: " + hitCount + ", misses: " + missCount + "}";
+    }
+
+    /**
+     * The selected template and the fingerprint of the context in which it is realised.
+     */
+    static final class Key {
+        private final CompiledTemplate template;
+        private final ERLanguage language;
+        private final List<Object> fingerprint;
+        private final int hashCode;
+
+        private Key(CompiledTemplate template, ERLanguage language, List<Object> fingerprint) {
+            this.template = template;
+            this.language = language;
+            this.fingerprint = fingerprint;
+            this.hashCode = 31 * (31 * System.identityHashCode(template) + language.hashCode()) + fingerprint.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return template == key.template && language == key.language && fingerprint.equals(key.fingerprint);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * The result of a realisation.
+     */
+    static final class CachedTexts {
+        private final String[] texts;
+        private final String[] mentions;
+        private final long createdNanos;
+
+        private CachedTexts(String[] texts, String[] mentions, long createdNanos) {
+            this.texts = texts;
+            this.mentions = mentions;
+            this.createdNanos = createdNanos;
+        }
+
+        String[] getTexts() {
+            return texts;
+        }
+
+        /**
+         * Update the mention distances as the realisation did.
+         *
+         * @param refExpGen the generator with the mention history
+         */
+        void updateMentionDistances(ReferringExpressionGenerator refExpGen) {
+            for (String mention : mentions)
+                refExpGen.updateMentionDistance(mention);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package expreal.erRealizer;
+
+import expreal.erElements.ERContext;
+import expreal.erElements.ERPredicate;
+
+/**
+ * A predicate to be realised in a context, as passed to {@link ExpressiveActionRealizer#realizeAll}.
+ */
+public final class RealizationRequest {
+    private final ERPredicate predicate;
+    private final ERContext context;
+    private final DiscourseSession session;
+    private final boolean inDefaultSession;
+
+    /**
+     * A request in the default session of the realizer, like {@link ExpressiveActionRealizer#getTexts(ERPredicate, ERContext)}.
+     *
+     * @param predicate predicate to be expressed by text
+     * @param context   context around this predicate
+     */
+    public RealizationRequest(ERPredicate predicate, ERContext context) {
+        this.predicate = predicate;
+        this.context = context;
+        this.session = null;
+        this.inDefaultSession = true;
+    }
+
+    /**
+     * A request in a session, like {@link ExpressiveActionRealizer#getTexts(ERPredicate, ERContext, DiscourseSession)}.
+     *
+     * @param predicate predicate to be expressed by text
+     * @param context   context around this predicate
+     * @param session   the conversation of which the mention history is used and updated. If null, a new session is used.
+     */
+    public RealizationRequest(ERPredicate predicate, ERContext context, DiscourseSession session) {
+        this.predicate = predicate;
+        this.context = context;
+        this.session = session;
+        this.inDefaultSession = false;
+    }
+
+    public ERPredicate getPredicate() {
+        return predicate;
+    }
+
+    public ERContext getContext() {
+        return context;
+    }
+
+    /**
+     * @return the session of the request, or null if it uses the default session or a new session
+     */
+    public DiscourseSession getSession() {
+        return session;
+    }
+
+    public boolean isInDefaultSession() {
+        return inDefaultSession;
+    }
+
+    @Override
+    public String toString() {
+        return "RealizationRequest{predicate: " + predicate + ", context: " + context + "}";
+    }
+}
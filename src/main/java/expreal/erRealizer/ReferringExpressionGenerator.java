@@ -7,8 +7,11 @@ import simplenlg.features.Feature;
 import simplenlg.features.Person;
 import simplenlg.phrasespec.NPPhraseSpec;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.IntSupplier;
 
 /**
  * This generator keeps track of mention distances and generates pronouns when applicable.
@@ -26,11 +29,23 @@ class ReferringExpressionGenerator {
      */
     HashMap<String, ERMentionedEntity> mentionDistances = new HashMap<>();
 
+    /**
+     * The number of sentences started so far. The mention distances are derived from it, so that starting a sentence
+     * increases all of them without visiting each entity.
+     */
+    private int sentenceCount = 0;
+    private final IntSupplier sentenceClock = () -> sentenceCount;
+
     /**
      * Thread change resets the mention distance counts and will therefore force the use of a definite description.
      */
     private boolean doThreadChange = false;
 
+    /**
+     * The keys of which the mention distance was updated since recording started, or null if not recording.
+     */
+    private List<String> recordedMentions;
+
     ReferringExpressionGenerator() {
     }
 
@@ -40,7 +55,7 @@ class ReferringExpressionGenerator {
      * @param key the key of the mentioned entity
      */
     void initMentionDistance(String key, String name) {
-        mentionDistances.put(key, new ERMentionedEntity(key, name, 0));
+        mentionDistances.put(key, new ERMentionedEntity(key, name, 0, sentenceClock));
     }
 
     /**
@@ -52,10 +67,36 @@ class ReferringExpressionGenerator {
     void updateMentionDistance(String key) {
         ERMentionedEntity entity = mentionDistances.get(key);
         if (entity == null)
-            entity = new ERMentionedEntity(key, 1);
+            mentionDistances.put(key, new ERMentionedEntity(key, 1, sentenceClock));
         else
             entity.incrementMentionDistance();
-        mentionDistances.put(key, entity);
+        if (recordedMentions != null)
+            recordedMentions.add(key);
+    }
+
+    /**
+     * Start a new sentence, which increases the mention distance of every mentioned entity by one.
+     */
+    void startSentence() {
+        sentenceCount++;
+    }
+
+    /**
+     * Start recording the keys of which the mention distance is updated.
+     */
+    void startRecordingMentions() {
+        recordedMentions = new ArrayList<>();
+    }
+
+    /**
+     * Stop recording the keys of which the mention distance is updated.
+     *
+     * @return the recorded keys, in the order in which they were updated
+     */
+    List<String> stopRecordingMentions() {
+        List<String> mentions = recordedMentions;
+        recordedMentions = null;
+        return mentions;
     }
 
     /**
@@ -65,10 +106,8 @@ class ReferringExpressionGenerator {
      */
     private void resetMentionDistance(String key) {
         ERMentionedEntity entity = mentionDistances.get(key);
-        if (entity != null) {
+        if (entity != null)
             entity.setMentionDistance(1);
-            mentionDistances.put(key, entity);
-        }
     }
 
     /**
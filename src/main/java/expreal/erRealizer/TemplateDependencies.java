@@ -0,0 +1,259 @@
+package expreal.erRealizer;
+
+import expreal.erElements.ERArgument;
+import expreal.erElements.ERContext;
+import expreal.erElements.ERObject;
+import expreal.erElements.ERPerson;
+
+import java.util.*;
+
+/**
+ * The values of the context that can influence the output of a template or of an entry of the authored templates:
+ * the $arguments, %persons, person properties, @flags and speaker/listener roles it reads, and the entries it expands,
+ * following references across entries. Computed once when the authored templates are loaded, see
+ * {@link AuthoredTemplatesCollection#getDependencies(String)}.
+ * <p>
+ * A name in a template or condition can refer to a person, an argument or another entry, depending on the context, so
+ * it is listed in each category it can be looked up in. The entries selected by the value of an argument or by the id
+ * of a person are only known in a context; these names are listed as dynamic references.
+ */
+public final class TemplateDependencies {
+    private final Set<String> arguments = new TreeSet<>();
+    private final Set<String> persons = new TreeSet<>();
+    private final Set<String> properties = new TreeSet<>();
+    private final Set<String> flags = new TreeSet<>();
+    private final Set<String> roles = new TreeSet<>();
+    private final Set<String> templates = new TreeSet<>();
+    private final Set<String> dynamicReferences = new TreeSet<>();
+    private boolean grammatical;
+
+    TemplateDependencies() {
+    }
+
+    /**
+     * @return the names looked up as arguments, e.g. task for $task
+     */
+    public Set<String> getArguments() {
+        return Collections.unmodifiableSet(arguments);
+    }
+
+    /**
+     * @return the names looked up as ids or realised names of persons, e.g. john for %john
+     */
+    public Set<String> getPersons() {
+        return Collections.unmodifiableSet(persons);
+    }
+
+    /**
+     * @return the properties of persons read by conditions, as personID.propertyName
+     */
+    public Set<String> getProperties() {
+        return Collections.unmodifiableSet(properties);
+    }
+
+    /**
+     * @return the names looked up as user-defined conditions, e.g. @userChoice
+     */
+    public Set<String> getFlags() {
+        return Collections.unmodifiableSet(flags);
+    }
+
+    /**
+     * @return speaker and/or listener, if the persons in these roles are read
+     */
+    public Set<String> getRoles() {
+        return Collections.unmodifiableSet(roles);
+    }
+
+    /**
+     * @return the entries that can be expanded, directly or through other entries
+     */
+    public Set<String> getTemplates() {
+        return Collections.unmodifiableSet(templates);
+    }
+
+    /**
+     * @return the names of which the value in the context selects the entry that is expanded
+     */
+    public Set<String> getDynamicReferences() {
+        return Collections.unmodifiableSet(dynamicReferences);
+    }
+
+    /**
+     * @return true if a grammatical block is realised, of which the output also depends on the mention history
+     */
+    public boolean isGrammatical() {
+        return grammatical;
+    }
+
+    /**
+     * Add the dependencies of an entry or template.
+     *
+     * @param other the dependencies to add
+     * @return true if a dependency was added
+     */
+    boolean addAll(TemplateDependencies other) {
+        boolean changed = arguments.addAll(other.arguments);
+        changed |= persons.addAll(other.persons);
+        changed |= properties.addAll(other.properties);
+        changed |= flags.addAll(other.flags);
+        changed |= roles.addAll(other.roles);
+        changed |= templates.addAll(other.templates);
+        changed |= dynamicReferences.addAll(other.dynamicReferences);
+        changed |= other.grammatical && !grammatical;
+        grammatical |= other.grammatical;
+        return changed;
+    }
+
+    /**
+     * Add the names read by a condition. The first operand is looked up as a person, an argument and a user-defined
+     * condition, in that order.
+     *
+     * @param condition the condition
+     */
+    void addCondition(Condition condition) {
+        String key = condition.getFirstOperand();
+        if (key == null)
+            return;
+        if (key.startsWith("@")) {
+            flags.add(key);
+            return;
+        }
+
+        String personId = condition.getFirstOperandPersonId();
+        if (personId != null) {
+            persons.add(personId);
+            properties.add(personId + "." + condition.firstOperandProperty);
+        } else {
+            persons.add(key);
+        }
+        arguments.add(key);
+        flags.add(key);
+    }
+
+    /**
+     * Add the names read by a template, without following references to other entries.
+     *
+     * @param template   the template
+     * @param collection the collection, to find out which names are entries
+     */
+    void addTemplate(CompiledTemplate template, AuthoredTemplatesCollection collection) {
+        String source = template.getSource();
+        if (source.contains(ERconstants.switchDialog)) {
+            roles.add("speaker");
+            roles.add("listener");
+        }
+        if (source.indexOf('{') != -1) {
+            // Grammatical blocks decide on pronouns with the speaker and listener
+            grammatical = true;
+            roles.add("speaker");
+            roles.add("listener");
+        }
+
+        CompiledTemplate.Utterance wholeText = template.getWholeText();
+        for (String variable : wholeText.getDollarVariables())
+            addVariable(variable, collection);
+        for (String variable : wholeText.getPercentageVariables())
+            addVariable(variable, collection);
+    }
+
+    /**
+     * Add a $variable or %variable. Both are replaced by the template of the speaker or listener, the template selected
+     * by the value of the argument or the id of the person with the name, or the template of the entry with the name.
+     */
+    private void addVariable(String variable, AuthoredTemplatesCollection collection) {
+        if (variable.isEmpty())
+            return;
+        if (variable.equals("speaker") || variable.equals("listener")) {
+            roles.add(variable);
+            return;
+        }
+        persons.add(variable);
+        arguments.add(variable);
+        dynamicReferences.add(variable);
+        if (collection.getConditionalAnnotatedTexts(variable) != null)
+            templates.add(variable);
+    }
+
+    /**
+     * Add the values of the dependencies in a context to a fingerprint, following the dynamic references. Contexts in
+     * which the fingerprints are equal give the same output.
+     *
+     * @param context     the context
+     * @param collection  the collection with the dependencies of the entries that dynamic references can select
+     * @param fingerprint the list to which the values are added
+     * @param visited     the names of which the references have already been followed
+     */
+    void addFingerprint(ERContext context, AuthoredTemplatesCollection collection, List<Object> fingerprint, Set<String> visited) {
+        for (String role : roles) {
+            ERPerson person = role.equals("speaker") ? context.getSpeaker() : context.getListener();
+            addPerson(fingerprint, person);
+            if (person != null)
+                followReference(person.getId(), context, collection, fingerprint, visited);
+        }
+        for (String person : persons) {
+            addPerson(fingerprint, context.getPerson(person));
+            addPerson(fingerprint, context.getPersonByRealisedName(person));
+        }
+        for (String argument : arguments) {
+            ERArgument contextArgument = context.getArgument(argument);
+            fingerprint.add(contextArgument == null ? null : contextArgument.getValue());
+        }
+        for (String property : properties) {
+            int separatorIndex = property.indexOf('.');
+            ERPerson person = context.getPerson(property.substring(0, separatorIndex));
+            fingerprint.add(person == null ? null : person.getProperty(property.substring(separatorIndex + 1)));
+        }
+        for (String flag : flags)
+            fingerprint.add(getValue(context.getObjectByKey(flag)));
+        for (String reference : dynamicReferences)
+            followReference(reference, context, collection, fingerprint, visited);
+    }
+
+    /**
+     * Add the values that the entry selected by a name depends on.
+     */
+    private static void followReference(String name, ERContext context, AuthoredTemplatesCollection collection,
+                                        List<Object> fingerprint, Set<String> visited) {
+        if (!visited.add(name))
+            return;
+
+        // The entry of a person with realised names is not used
+        addPerson(fingerprint, context.getPerson(name));
+        TemplateDependencies entryDependencies = collection.getDependencies(name);
+        if (entryDependencies != null)
+            entryDependencies.addFingerprint(context, collection, fingerprint, visited);
+
+        ERArgument argument = context.getArgument(name);
+        fingerprint.add(argument == null ? null : argument.getValue());
+        if (argument != null)
+            followReference(argument.getValue(), context, collection, fingerprint, visited);
+    }
+
+    private static void addPerson(List<Object> fingerprint, ERPerson person) {
+        if (person == null) {
+            fingerprint.add(null);
+            return;
+        }
+        fingerprint.add(person.getId());
+        fingerprint.add(person.getGender());
+        fingerprint.add(person.hasRealisedNames() ? Arrays.asList(person.getRealisedNames().clone()) : null);
+    }
+
+    private static String getValue(ERObject object) {
+        if (object == null)
+            return null;
+        if (object instanceof ERPerson)
+            return ((ERPerson) object).getId();
+        if (object instanceof ERArgument)
+            return ((ERArgument) object).getValue();
+        return object.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "TemplateDependencies{arguments: " + arguments + ", persons: " + persons + ", properties: " + properties
+                + ", flags: " + flags + ", roles: " + roles + ", templates: " + templates
+                + ", dynamicReferences: " + dynamicReferences + ", grammatical: " + grammatical + "}";
+    }
+}
@@ -0,0 +1,428 @@
+package expreal.erRealizer;
+
+import expreal.erElements.ERContext;
+
+import java.util.*;
+
+/**
+ * A discrimination index over the conditional texts of a single entry (e.g. a narrative act), built on their equality
+ * conditions. Looking up a context only returns the texts whose equality conditions can match the values in the
+ * context, so that the full conditions only need to be verified for these candidates.
+ * <p>
+ * The index is a decision tree: each node tests the operand that is constrained by the most texts, sends the texts
+ * into a bucket per required value, and keeps the texts without a constraint on that operand in a separate branch
+ * that is always followed. Candidates are returned in their original order, so that the selection among them is the
+ * same as without the index.
+ * <p>
+ * The conditions of the texts are deduplicated: each distinct condition gets a number, and each text has the set of
+ * numbers of its conditions. A condition that is shared by many texts is then only verified once per lookup.
+ * Inequalities on the same property (e.g. %john.contentedness &gt;= 0.8, %john.contentedness &lt; 0.5) are verified
+ * together: the value of the property is looked up once, and a binary search over their sorted thresholds gives the
+ * inequalities that are met.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+final class TemplateIndex {
+
+    /**
+     * Nodes with this number of texts or fewer are not split any further.
+     */
+    private static final int MAX_LEAF_SIZE = 8;
+
+    private final Vector<ConditionalAnnotatedText> condTexts;
+    private final Node root;
+
+    /**
+     * The distinct conditions of all texts.
+     */
+    private final Condition[] conditions;
+
+    /**
+     * For each text, the numbers of its conditions in {@link #conditions}.
+     */
+    private final BitSet[] conditionSets;
+
+    /**
+     * For each condition, the group of inequalities on the same property it belongs to, or null.
+     */
+    private final ThresholdGroup[] thresholdGroups;
+
+    private TemplateIndex(Vector<ConditionalAnnotatedText> condTexts, Node root, Condition[] conditions, BitSet[] conditionSets) {
+        this.condTexts = condTexts;
+        this.root = root;
+        this.conditions = conditions;
+        this.conditionSets = conditionSets;
+        this.thresholdGroups = ThresholdGroup.build(conditions);
+    }
+
+    /**
+     * Build the index for the conditional texts of an entry.
+     *
+     * @param condTexts the conditional texts, in the order of the author file
+     * @return the index
+     */
+    static TemplateIndex build(Vector<ConditionalAnnotatedText> condTexts) {
+        int[] positions = new int[condTexts.size()];
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = i;
+
+        // Number the distinct conditions
+        Map<String, Integer> conditionNumbers = new HashMap<>();
+        List<Condition> conditions = new ArrayList<>();
+        BitSet[] conditionSets = new BitSet[condTexts.size()];
+        for (int i = 0; i < conditionSets.length; i++) {
+            conditionSets[i] = new BitSet();
+            for (Condition condition : condTexts.get(i).conditions) {
+                String key = condition.getFirstOperand() + '\u0000' + condition.getOperator() + '\u0000' + condition.getSecondOperand();
+                Integer number = conditionNumbers.get(key);
+                if (number == null) {
+                    number = conditions.size();
+                    conditionNumbers.put(key, number);
+                    conditions.add(condition);
+                }
+                conditionSets[i].set(number);
+            }
+        }
+
+        return new TemplateIndex(condTexts, buildNode(condTexts, positions, new HashSet<String>()),
+                conditions.toArray(new Condition[0]), conditionSets);
+    }
+
+    private static Node buildNode(Vector<ConditionalAnnotatedText> condTexts, int[] positions, Set<String> usedOperands) {
+        if (positions.length <= MAX_LEAF_SIZE)
+            return new Node(positions);
+
+        // Find the operand constrained by an equality in most texts
+        Map<String, Integer> counts = new HashMap<>();
+        String bestOperand = null;
+        int bestCount = 0;
+        for (int position : positions) {
+            Set<String> textOperands = new HashSet<>(); //count each text only once per operand
+            for (Condition condition : equalityConditions(condTexts.get(position))) {
+                String operand = condition.getFirstOperand();
+                if (usedOperands.contains(operand) || !textOperands.add(operand))
+                    continue;
+                Integer count = counts.get(operand);
+                count = (count == null) ? 1 : count + 1;
+                counts.put(operand, count);
+                if (count > bestCount) {
+                    bestCount = count;
+                    bestOperand = operand;
+                }
+            }
+        }
+
+        if (bestOperand == null || bestCount < 2)
+            return new Node(positions);
+
+        // Partition the texts by the value they require for this operand
+        Map<String, List<Integer>> buckets = new LinkedHashMap<>();
+        List<Integer> unconstrained = new ArrayList<>();
+        for (int position : positions) {
+            String requiredValue = getRequiredValue(condTexts.get(position), bestOperand);
+            if (requiredValue == null) {
+                unconstrained.add(position);
+            } else {
+                List<Integer> bucket = buckets.get(requiredValue);
+                if (bucket == null) {
+                    bucket = new ArrayList<>();
+                    buckets.put(requiredValue, bucket);
+                }
+                bucket.add(position);
+            }
+        }
+
+        Set<String> childUsedOperands = new HashSet<>(usedOperands);
+        childUsedOperands.add(bestOperand);
+
+        Map<String, Node> branches = new HashMap<>();
+        for (Map.Entry<String, List<Integer>> bucket : buckets.entrySet())
+            branches.put(bucket.getKey(), buildNode(condTexts, toArray(bucket.getValue()), childUsedOperands));
+
+        Node unconstrainedNode = unconstrained.isEmpty() ? null : buildNode(condTexts, toArray(unconstrained), childUsedOperands);
+        return new Node(bestOperand, branches, unconstrainedNode);
+    }
+
+    /**
+     * Get the value a text requires for an operand. If the text has several equality conditions on the operand, it can
+     * only be met if they are all met, so any of them can be used.
+     *
+     * @return the required value, or null if the text does not constrain the operand with an equality
+     */
+    private static String getRequiredValue(ConditionalAnnotatedText condText, String operand) {
+        for (Condition condition : equalityConditions(condText)) {
+            if (condition.getFirstOperand().equals(operand))
+                return condition.getSecondOperand();
+        }
+        return null;
+    }
+
+    private static List<Condition> equalityConditions(ConditionalAnnotatedText condText) {
+        List<Condition> result = new ArrayList<>();
+        for (Condition condition : condText.conditions) {
+            if (condition.getOperator() == Condition.OperatorType.EQUALITY
+                    && condition.getFirstOperand() != null && condition.getSecondOperand() != null)
+                result.add(condition);
+        }
+        return result;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = list.get(i);
+        return result;
+    }
+
+    /**
+     * Get the texts of which all conditions are met in the context. Only the texts whose equality conditions on the
+     * indexed operands match the context are verified, and each distinct condition is verified at most once.
+     *
+     * @param context the context in which the texts are selected
+     * @return the verified texts, in their original order
+     */
+    Vector<ConditionalAnnotatedText> getVerifiedTexts(ERContext context) {
+        BitSet found = new BitSet(condTexts.size());
+        collect(root, context, found);
+
+        BitSet verifiedConditions = new BitSet(conditions.length);
+        BitSet unmetConditions = new BitSet(conditions.length);
+
+        Vector<ConditionalAnnotatedText> result = new Vector<>();
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            if (isVerified(conditionSets[i], context, verifiedConditions, unmetConditions))
+                result.add(condTexts.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Check whether all conditions of a set are met, verifying the conditions that have not been verified before.
+     *
+     * @param conditionSet       the numbers of the conditions
+     * @param context            the context in which the conditions are verified
+     * @param verifiedConditions the conditions that are known to be met, updated with the newly verified conditions
+     * @param unmetConditions    the conditions that are known not to be met, updated likewise
+     * @return true if all conditions of the set are met
+     */
+    private boolean isVerified(BitSet conditionSet, ERContext context, BitSet verifiedConditions, BitSet unmetConditions) {
+        if (conditionSet.intersects(unmetConditions))
+            return false;
+
+        for (int i = conditionSet.nextSetBit(0); i >= 0; i = conditionSet.nextSetBit(i + 1)) {
+            if (verifiedConditions.get(i))
+                continue;
+            if (thresholdGroups[i] != null && !unmetConditions.get(i)) {
+                thresholdGroups[i].verify(context, verifiedConditions, unmetConditions);
+                if (verifiedConditions.get(i))
+                    continue;
+                return false;
+            }
+            if (conditions[i].isVerified(context)) {
+                verifiedConditions.set(i);
+            } else {
+                unmetConditions.set(i);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void collect(Node node, ERContext context, BitSet found) {
+        if (node.positions != null) {
+            for (int position : node.positions)
+                found.set(position);
+            return;
+        }
+
+        String value = Condition.getContextValue(context, node.operand);
+        if (value != null) {
+            Node branch = node.branches.get(value);
+            if (branch != null)
+                collect(branch, context, found);
+        }
+        if (node.unconstrained != null)
+            collect(node.unconstrained, context, found);
+    }
+
+    /**
+     * @return all texts of the entry, in their original order
+     */
+    Vector<ConditionalAnnotatedText> getConditionalTexts() {
+        return condTexts;
+    }
+
+    /**
+     * The inequalities on one property with a numeric threshold. The thresholds divide the numbers into regions in
+     * which every inequality is either met or not: below the lowest threshold, at the lowest threshold, between the
+     * lowest and the next threshold, and so on. The inequalities that are met are computed for each region in advance.
+     */
+    private static final class ThresholdGroup {
+        /**
+         * Any inequality of the group, to look up the value of the property.
+         */
+        final Condition condition;
+
+        /**
+         * The distinct thresholds, in ascending order.
+         */
+        final float[] thresholds;
+
+        /**
+         * For each region, the numbers of the inequalities that are met and that are not met.
+         */
+        final BitSet[] metByRegion, unmetByRegion;
+
+        /**
+         * The numbers of all inequalities of the group, which are not met when the property has no value.
+         */
+        final BitSet allConditions;
+
+        private ThresholdGroup(Condition condition, float[] thresholds, BitSet[] metByRegion,
+                               BitSet[] unmetByRegion, BitSet allConditions) {
+            this.condition = condition;
+            this.thresholds = thresholds;
+            this.metByRegion = metByRegion;
+            this.unmetByRegion = unmetByRegion;
+            this.allConditions = allConditions;
+        }
+
+        /**
+         * Group the inequalities with a numeric threshold by their first operand.
+         *
+         * @param conditions the distinct conditions of an entry
+         * @return the group of each condition, null for conditions that are not in a group
+         */
+        static ThresholdGroup[] build(Condition[] conditions) {
+            Map<String, List<Integer>> members = new HashMap<>();
+            for (int i = 0; i < conditions.length; i++) {
+                Condition condition = conditions[i];
+                if (condition.getFirstOperand() == null || !condition.isInequality() || Float.isNaN(condition.getThreshold()))
+                    continue;
+                List<Integer> group = members.get(condition.getFirstOperand());
+                if (group == null) {
+                    group = new ArrayList<>();
+                    members.put(condition.getFirstOperand(), group);
+                }
+                group.add(i);
+            }
+
+            ThresholdGroup[] result = new ThresholdGroup[conditions.length];
+            for (List<Integer> group : members.values()) {
+                if (group.size() < 2)
+                    continue;
+                ThresholdGroup thresholdGroup = build(conditions, group);
+                for (int number : group)
+                    result[number] = thresholdGroup;
+            }
+            return result;
+        }
+
+        private static ThresholdGroup build(Condition[] conditions, List<Integer> group) {
+            TreeSet<Float> distinctThresholds = new TreeSet<>();
+            for (int number : group)
+                distinctThresholds.add(normalise(conditions[number].getThreshold()));
+
+            float[] thresholds = new float[distinctThresholds.size()];
+            int t = 0;
+            for (float threshold : distinctThresholds)
+                thresholds[t++] = threshold;
+
+            int regions = 2 * thresholds.length + 1;
+            BitSet[] metConditions = new BitSet[regions];
+            BitSet[] unmetConditions = new BitSet[regions];
+            BitSet allConditions = new BitSet();
+            for (int number : group)
+                allConditions.set(number);
+
+            for (int region = 0; region < regions; region++) {
+                metConditions[region] = new BitSet();
+                for (int number : group) {
+                    Condition condition = conditions[number];
+                    int thresholdIndex = Arrays.binarySearch(thresholds, normalise(condition.getThreshold()));
+                    if (isMet(condition.getOperator(), thresholdIndex, region))
+                        metConditions[region].set(number);
+                }
+                unmetConditions[region] = (BitSet) allConditions.clone();
+                unmetConditions[region].andNot(metConditions[region]);
+            }
+            return new ThresholdGroup(conditions[group.get(0)], thresholds, metConditions, unmetConditions, allConditions);
+        }
+
+        /**
+         * Check whether an inequality is met by the values of a region. Region 2k lies between threshold k-1 and
+         * threshold k; region 2k+1 is threshold k itself.
+         *
+         * @param operator       the operator of the inequality
+         * @param thresholdIndex the index of the threshold of the inequality
+         * @param region         the region
+         * @return true if the inequality is met
+         */
+        private static boolean isMet(Condition.OperatorType operator, int thresholdIndex, int region) {
+            int thresholdRegion = 2 * thresholdIndex + 1;
+            switch (operator) {
+                case GREATER_THAN:
+                    return region > thresholdRegion;
+                case GREATER_THAN_OR_EQUAL:
+                    return region >= thresholdRegion;
+                case SMALLER_THAN:
+                    return region < thresholdRegion;
+                case SMALLER_THAN_OR_EQUAL:
+                    return region <= thresholdRegion;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Verify all inequalities of the group.
+         *
+         * @param context            the context with the value of the property
+         * @param verifiedConditions the conditions that are known to be met, updated with the inequalities that are met
+         * @param unmetConditions    the conditions that are known not to be met, updated likewise
+         */
+        void verify(ERContext context, BitSet verifiedConditions, BitSet unmetConditions) {
+            Float value = condition.getPropertyValue(context);
+            if (value == null || value.isNaN()) {
+                unmetConditions.or(allConditions);
+                return;
+            }
+
+            int index = Arrays.binarySearch(thresholds, normalise(value));
+            int region = index >= 0 ? 2 * index + 1 : 2 * (-index - 1);
+            verifiedConditions.or(metByRegion[region]);
+            unmetConditions.or(unmetByRegion[region]);
+        }
+
+        /**
+         * Binary search orders -0 before 0, while inequalities treat them as equal.
+         */
+        private static float normalise(float value) {
+            return value + 0.0f;
+        }
+    }
+
+    private static final class Node {
+        /**
+         * Positions of the texts in this leaf, or null if the node is split on an operand.
+         */
+        final int[] positions;
+        final String operand;
+        final Map<String, Node> branches;
+        final Node unconstrained;
+
+        Node(int[] positions) {
+            this.positions = positions;
+            this.operand = null;
+            this.branches = null;
+            this.unconstrained = null;
+        }
+
+        Node(String operand, Map<String, Node> branches, Node unconstrained) {
+            this.positions = null;
+            this.operand = operand;
+            this.branches = branches;
+            this.unconstrained = unconstrained;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package expreal.erRealizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written scanning of the template grammar: variable names, dialog turns, sentences, subclauses and conditions.
+ * Each method looks at every character a bounded number of times, and gives the same result as the regular expression
+ * it replaces, which is given in its description.
+ */
+final class TemplateScanner {
+
+    /**
+     * The variable separators below U+0100, by character.
+     */
+    private static final boolean[] latinSeparators = new boolean[256];
+
+    /**
+     * The variable separators from U+0100, such as the ellipsis.
+     */
+    private static final String otherSeparators;
+
+    static {
+        // Read the characters and ranges of the character class, e.g. [}  ,.:;!?…"-']
+        String separatorClass = ERconstants.textVariableSeparators;
+        StringBuilder others = new StringBuilder();
+        for (int i = 1; i < separatorClass.length() - 1; i++) {
+            char first = separatorClass.charAt(i);
+            char last = first;
+            if (i + 2 < separatorClass.length() - 1 && separatorClass.charAt(i + 1) == '-') {
+                last = separatorClass.charAt(i + 2);
+                i += 2;
+            }
+            for (char c = first; c <= last; c++) {
+                if (c < latinSeparators.length)
+                    latinSeparators[c] = true;
+                else
+                    others.append(c);
+            }
+        }
+        otherSeparators = others.toString();
+    }
+
+    private TemplateScanner() {
+    }
+
+    /**
+     * @param c the character
+     * @return true if the character ends the name of a variable, see {@link ERconstants#textVariableSeparators}
+     */
+    static boolean isVariableSeparator(char c) {
+        if (c < latinSeparators.length)
+            return latinSeparators[c];
+        return otherSeparators.indexOf(c) != -1;
+    }
+
+    /**
+     * Find the first variable separator.
+     *
+     * @param text      the text to search
+     * @param fromIndex the index to start from
+     * @return the index of the separator, or -1 if not found
+     */
+    static int indexOfVariableSeparator(String text, int fromIndex) {
+        for (int i = Math.max(fromIndex, 0); i < text.length(); i++) {
+            if (isVariableSeparator(text.charAt(i)))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Split a template into dialog turns, as {@code split("—|--")}.
+     *
+     * @param source the template
+     * @return the parts between the separators
+     */
+    static String[] splitDialogTurns(String source) {
+        List<int[]> separators = new ArrayList<>();
+        int i = 0;
+        while (i < source.length()) {
+            if (source.charAt(i) == '—') {
+                separators.add(new int[]{i, i + 1});
+                i++;
+            } else if (source.startsWith("--", i)) {
+                separators.add(new int[]{i, i + 2});
+                i += 2;
+            } else {
+                i++;
+            }
+        }
+        return split(source, separators);
+    }
+
+    /**
+     * Split a text into sentences at the white space after a full stop or question mark, unless the full stop ends an
+     * abbreviation such as e.g. or Mr. This is {@code split("(?<!\\w\\.\\w.)(?<![A-Z][a-z]\\.)(?<=[.?])\\s")}.
+     *
+     * @param text the text
+     * @return the sentences
+     */
+    static String[] splitSentences(String text) {
+        List<int[]> separators = new ArrayList<>();
+        for (int i = 1; i < text.length(); i++) {
+            if (!isWhitespace(text.charAt(i)))
+                continue;
+            char previous = text.charAt(i - 1);
+            if (previous != '.' && previous != '?')
+                continue;
+            if (i >= 4 && isWordCharacter(text.charAt(i - 4)) && text.charAt(i - 3) == '.'
+                    && isWordCharacter(text.charAt(i - 2)))
+                continue;
+            if (i >= 3 && previous == '.' && isUpperCase(text.charAt(i - 3)) && isLowerCase(text.charAt(i - 2)))
+                continue;
+            separators.add(new int[]{i, i + 1});
+        }
+        return split(text, separators);
+    }
+
+    /**
+     * Split a sentence at each | that has a grammatical block to its right: the first brace after it is an opening
+     * brace, or there is none. This is {@code split("(\\|)(?=[^}]*(\\{|$))")}.
+     *
+     * @param sentence the sentence
+     * @return the subclauses
+     */
+    static String[] splitSubclausesAtPipes(String sentence) {
+        List<int[]> separators = new ArrayList<>();
+        boolean nextBraceOpens = true;
+        for (int i = sentence.length() - 1; i >= 0; i--) {
+            char c = sentence.charAt(i);
+            if (c == '{')
+                nextBraceOpens = true;
+            else if (c == '}')
+                nextBraceOpens = false;
+            else if (c == '|' && nextBraceOpens)
+                separators.add(0, new int[]{i, i + 1});
+        }
+        return split(sentence, separators);
+    }
+
+    /**
+     * Split a sentence before each subject block, as {@code split("(?=\\{#? ?subject ?:)")}.
+     *
+     * @param sentence the sentence
+     * @return the subclauses
+     */
+    static String[] splitBeforeSubjects(String sentence) {
+        List<int[]> separators = new ArrayList<>();
+        for (int i = sentence.indexOf('{'); i != -1; i = sentence.indexOf('{', i + 1)) {
+            int j = i + 1;
+            if (j < sentence.length() && sentence.charAt(j) == '#') j++;
+            if (j < sentence.length() && sentence.charAt(j) == ' ') j++;
+            if (!sentence.startsWith("subject", j))
+                continue;
+            j += "subject".length();
+            if (j < sentence.length() && sentence.charAt(j) == ' ') j++;
+            if (j < sentence.length() && sentence.charAt(j) == ':')
+                separators.add(new int[]{i, i});
+        }
+        return split(sentence, separators);
+    }
+
+    /**
+     * Split a text into words at each space, as {@code split(" ")}.
+     *
+     * @param text the text
+     * @return the words, with empty strings between consecutive spaces
+     */
+    static String[] splitWords(String text) {
+        List<int[]> separators = new ArrayList<>();
+        for (int i = text.indexOf(' '); i != -1; i = text.indexOf(' ', i + 1))
+            separators.add(new int[]{i, i + 1});
+        return split(text, separators);
+    }
+
+    /**
+     * Split a condition into its operands at the operator, as splitting with the regular expression
+     * {@code (\s?=\s?(?![<>]))|(\s!?in\s)|(\s!?contains\s)|(\s?(?=[^=])[<>!]=?\s?)}.
+     *
+     * @param condition the condition, e.g. %john.contentedness &gt;= 0.8
+     * @return the operands
+     */
+    static String[] splitCondition(String condition) {
+        List<int[]> separators = new ArrayList<>();
+        int i = 0;
+        while (i < condition.length()) {
+            int length = matchOperator(condition, i);
+            if (length > 0) {
+                separators.add(new int[]{i, i + length});
+                i += length;
+            } else {
+                i++;
+            }
+        }
+        return split(condition, separators);
+    }
+
+    /**
+     * Match an operator of a condition at an index, trying the alternatives in the order of the regular expression.
+     *
+     * @return the length of the operator, or -1 if there is none at the index
+     */
+    private static int matchOperator(String s, int i) {
+        int n = s.length();
+
+        // \s?=\s?(?![<>])
+        int end = -1;
+        if (isWhitespace(charAt(s, i)) && charAt(s, i + 1) == '=')
+            end = i + 2;
+        else if (charAt(s, i) == '=')
+            end = i + 1;
+        if (end != -1) {
+            if (isWhitespace(charAt(s, end)) && !isAngleBracket(charAt(s, end + 1)))
+                return end + 1 - i;
+            if (!isAngleBracket(charAt(s, end)))
+                return end - i;
+        }
+
+        // \s!?in\s and \s!?contains\s
+        if (isWhitespace(charAt(s, i))) {
+            int j = charAt(s, i + 1) == '!' ? i + 2 : i + 1;
+            if (s.startsWith("in", j) && isWhitespace(charAt(s, j + 2)))
+                return j + 3 - i;
+            if (s.startsWith("contains", j) && isWhitespace(charAt(s, j + 8)))
+                return j + 9 - i;
+        }
+
+        // \s?(?=[^=])[<>!]=?\s?
+        int j = isWhitespace(charAt(s, i)) ? i + 1 : i;
+        char c = charAt(s, j);
+        if (c == '<' || c == '>' || c == '!') {
+            j++;
+            if (j < n && s.charAt(j) == '=') j++;
+            if (j < n && isWhitespace(s.charAt(j))) j++;
+            return j - i;
+        }
+        return -1;
+    }
+
+    /**
+     * Remove the spaces around the commas of a list of conditions, as {@code replaceAll(" *, *", ",")}.
+     *
+     * @param conditions the conditions
+     * @return the conditions without spaces around the commas
+     */
+    static String removeSpacesAroundCommas(String conditions) {
+        if (conditions.indexOf(',') == -1)
+            return conditions;
+
+        StringBuilder result = new StringBuilder(conditions.length());
+        for (int i = 0; i < conditions.length(); i++) {
+            char c = conditions.charAt(i);
+            if (c == ',') {
+                int length = result.length();
+                while (length > 0 && result.charAt(length - 1) == ' ')
+                    length--;
+                result.setLength(length);
+                result.append(',');
+                while (i + 1 < conditions.length() && conditions.charAt(i + 1) == ' ')
+                    i++;
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Split a text at the given separators with the semantics of {@link String#split(String)}: a separator of zero
+     * width at the start does not give an empty first part, and empty parts at the end are removed.
+     *
+     * @param text       the text
+     * @param separators the start and end of each separator, in order
+     * @return the parts between the separators
+     */
+    private static String[] split(String text, List<int[]> separators) {
+        List<String> parts = new ArrayList<>(separators.size() + 1);
+        int index = 0;
+        for (int[] separator : separators) {
+            if (separator[0] == 0 && separator[1] == 0)
+                continue;
+            parts.add(text.substring(index, separator[0]));
+            index = separator[1];
+        }
+        if (parts.isEmpty())
+            return new String[]{text};
+        parts.add(text.substring(index));
+
+        int size = parts.size();
+        while (size > 0 && parts.get(size - 1).isEmpty())
+            size--;
+        return parts.subList(0, size).toArray(new String[0]);
+    }
+
+    private static char charAt(String s, int index) {
+        return index < s.length() ? s.charAt(index) : '\0';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAngleBracket(char c) {
+        return c == '<' || c == '>';
+    }
+
+    private static boolean isWordCharacter(char c) {
+        return isUpperCase(c) || isLowerCase(c) || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isUpperCase(char c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isLowerCase(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+}
@@ -1,24 +1,21 @@
 package expreal.erRealizer;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 class Tools {
 
     /**
-     * An extension of String.indexOf to a regular expression.
+     * Get the name of the variable starting at the given index, up to the next variable separator.
      *
-     * @param string      haystack
-     * @param regexpMatch regexp needle
-     * @return index if not, -1 if not found
+     * @param rawString  the text containing the variable
+     * @param startIndex the index of the first character after the variable prefix
+     * @return the variable name
      */
-    static int indexOf(String string, String regexpMatch, int fromIndex) {
-        Pattern p = Pattern.compile(regexpMatch);
-        Matcher m = p.matcher(string);
-        if (m.find(fromIndex)) {
-            return m.start();
-        }
-        return -1;
+    static String getTextVariable(String rawString, int startIndex) {
+        int endOfWordIndex = TemplateScanner.indexOfVariableSeparator(rawString, startIndex);
+
+        if (endOfWordIndex == -1) //special case when the variable is at the end of the string
+            endOfWordIndex = rawString.length();
+
+        return rawString.substring(startIndex, endOfWordIndex);
     }
 
 }
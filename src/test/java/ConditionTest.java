@@ -0,0 +1,75 @@
+import expreal.erElements.*;
+import expreal.erRealizer.Condition;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+/**
+ * These tests test the verification of single conditions in a context.
+ */
+public class ConditionTest extends TestHelper {
+
+    private ERContext context = new ERContext();
+
+    @Before
+    public void setUp() {
+        ERPerson john = new ERPerson("john", ERGender.MASCULINE);
+        john.setProperty("contentedness", 0.8f);
+        context.addPerson(john);
+        context.addArgument(new ERArgument("task", "SitOn"));
+        context.addArgument(new ERArgument("inventory", "[key,lamp,rope]"));
+        context.setSpeaker(john);
+    }
+
+    /**
+     * Test conditions on the properties of persons.
+     */
+    @Test
+    public void inequalityTest() {
+        collector.checkThat(new Condition("%john.contentedness >= 0.8").isVerified(context), equalTo(true));
+        collector.checkThat(new Condition("%john.contentedness > 0.8").isVerified(context), equalTo(false));
+        collector.checkThat(new Condition("%john.contentedness<0.9").isVerified(context), equalTo(true));
+        collector.checkThat(new Condition("%john.aggression < 0.9").isVerified(context), equalTo(false));
+        collector.checkThat(new Condition("%paul.contentedness < 0.9").isVerified(context), equalTo(false));
+        collector.checkThat(new Condition("%john.contentedness < high").isVerified(context), equalTo(false));
+    }
+
+    /**
+     * Test equality conditions on arguments.
+     */
+    @Test
+    public void equalityTest() {
+        collector.checkThat(new Condition("$task = SitOn").isVerified(context), equalTo(true));
+        collector.checkThat(new Condition("$task=SitOn").isVerified(context), equalTo(true));
+        collector.checkThat(new Condition("$task != SitOn").isVerified(context), equalTo(false));
+        collector.checkThat(new Condition("$goal != SitOn").isVerified(context), equalTo(true));
+    }
+
+    /**
+     * Test conditions on arguments with a list of values.
+     */
+    @Test
+    public void containsTest() {
+        collector.checkThat(new Condition("$inventory contains key").isVerified(context), equalTo(true));
+        collector.checkThat(new Condition("$inventory contains rope").isVerified(context), equalTo(true));
+        collector.checkThat(new Condition("$inventory contains ke").isVerified(context), equalTo(false));
+        collector.checkThat(new Condition("$inventory !contains lamp").isVerified(context), equalTo(false));
+        collector.checkThat(new Condition("$inventory !contains sword").isVerified(context), equalTo(true));
+        collector.checkThat(new Condition("$pockets !contains sword").isVerified(context), equalTo(true));
+    }
+
+    /**
+     * Test conditions on arguments with a set of values.
+     */
+    @Test
+    public void setArgumentTest() {
+        context.addArgument(new ERSetArgument("facts", Arrays.asList("murder", "alibi", "weapon")));
+
+        collector.checkThat(new Condition("$facts contains alibi").isVerified(context), equalTo(true));
+        collector.checkThat(new Condition("$facts !contains motive").isVerified(context), equalTo(true));
+        collector.checkThat(new Condition("$facts = [murder,alibi,weapon]").isVerified(context), equalTo(true));
+    }
+}
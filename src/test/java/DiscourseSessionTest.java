@@ -0,0 +1,226 @@
+import expreal.erElements.*;
+import expreal.erRealizer.DiscourseSession;
+import expreal.erRealizer.ExpressiveActionRealizer;
+import expreal.erRealizer.RealizationRequest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+/**
+ * These tests test that the mention history is kept per session, so that one realizer can serve multiple conversations.
+ */
+public class DiscourseSessionTest extends TestHelper {
+
+    private ERPerson frank = new ERPerson("frank", ERGender.MASCULINE);
+    private ERPerson lili = new ERPerson("lili", ERGender.FEMININE);
+    private ERPerson julia = new ERPerson("julia", ERGender.FEMININE);
+
+    private ERPredicate pred1;
+    private ERPredicate pred2;
+
+    @Before
+    public void setUp() {
+        Vector<ERArgument> args1 = new Vector<>();
+        args1.add(new ERArgument("test", "refexp-interactivedialog1"));
+        pred1 = new ERPredicate("InformIntention", args1);
+
+        Vector<ERArgument> args2 = new Vector<>();
+        args2.add(new ERArgument("test", "refexp-interactivedialog2"));
+        pred2 = new ERPredicate("InformIntention", args2);
+    }
+
+    private ERContext createContext() {
+        ERContext context = new ERContext();
+        context.addPerson(frank);
+        context.addPerson(lili);
+        context.addPerson(julia);
+        context.setSpeaker(julia);
+        context.setListener(lili);
+        return context;
+    }
+
+    /**
+     * Test that the mention history of one session does not influence another session.
+     */
+    @Test
+    public void separateSessionsTest() {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        DiscourseSession firstSession = new DiscourseSession();
+        DiscourseSession secondSession = new DiscourseSession();
+
+        collector.checkThat(realizer.getTexts(pred1, createContext(), firstSession).get(0), equalTo("Did you hear about Frank?"));
+        collector.checkThat(realizer.getTexts(pred2, createContext(), secondSession).get(0), equalTo("What's up with Frank?"));
+        collector.checkThat(realizer.getTexts(pred2, createContext(), firstSession).get(0), equalTo("What's up with him?"));
+    }
+
+    /**
+     * Test that sessions can be used concurrently with a single realizer.
+     */
+    @Test
+    public void concurrentSessionsTest() throws Exception {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            futures.add(executor.submit(() -> {
+                DiscourseSession session = new DiscourseSession();
+                List<String> texts = new ArrayList<>();
+                texts.addAll(realizer.getTexts(pred1, createContext(), session));
+                texts.addAll(realizer.getTexts(pred2, createContext(), session));
+                return texts;
+            }));
+        }
+
+        for (Future<List<String>> future : futures) {
+            List<String> texts = future.get(60, TimeUnit.SECONDS);
+            collector.checkThat(texts.get(0), equalTo("Did you hear about Frank?"));
+            collector.checkThat(texts.get(1), equalTo("What's up with him?"));
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Test that sessions with the same seed pick the same variants.
+     */
+    @Test
+    public void seededSessionsTest() {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        Vector<ERArgument> arguments = new Vector<>();
+        arguments.add(new ERArgument("test", "variants"));
+        ERPredicate predicate = new ERPredicate("InformIntention", arguments);
+
+        DiscourseSession firstSession = new DiscourseSession(42);
+        DiscourseSession secondSession = new DiscourseSession(42);
+        HashSet<String> variants = new HashSet<>();
+
+        for (int i = 0; i < 20; i++) {
+            String text = realizer.getTexts(predicate, createContext(), firstSession).get(0);
+            collector.checkThat(realizer.getTexts(predicate, createContext(), secondSession).get(0), equalTo(text));
+            variants.add(text);
+        }
+        collector.checkThat(variants.size() > 1, equalTo(true));
+    }
+
+    /**
+     * Test that a batch keeps the order of the requests within each session.
+     */
+    @Test
+    public void realizeAllTest() {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        List<RealizationRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            DiscourseSession session = new DiscourseSession();
+            requests.add(new RealizationRequest(pred1, createContext(), session));
+            requests.add(new RealizationRequest(pred2, createContext(), session));
+        }
+
+        List<Vector<String>> results = realizer.realizeAll(requests);
+        collector.checkThat(results.size(), equalTo(requests.size()));
+        for (int i = 0; i < results.size(); i += 2) {
+            collector.checkThat(results.get(i).get(0), equalTo("Did you hear about Frank?"));
+            collector.checkThat(results.get(i + 1).get(0), equalTo("What's up with him?"));
+        }
+    }
+
+    /**
+     * Test that asynchronous realisations in a session are done in the order in which they were requested.
+     */
+    @Test
+    public void asyncSessionTest() throws Exception {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        realizer.setExecutor(executor);
+        DiscourseSession session = new DiscourseSession();
+
+        CompletableFuture<List<String>> first = realizer.getTextsAsync(pred1, createContext(), session);
+        CompletableFuture<List<String>> second = realizer.getTextsAsync(pred2, createContext(), session);
+
+        collector.checkThat(first.get(60, TimeUnit.SECONDS).get(0), equalTo("Did you hear about Frank?"));
+        collector.checkThat(second.get(60, TimeUnit.SECONDS).get(0), equalTo("What's up with him?"));
+        executor.shutdown();
+    }
+
+    /**
+     * Test that a cancelled request that is still queued is skipped, and that the next request in the session runs.
+     */
+    @Test
+    public void cancelQueuedRequestTest() throws Exception {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        realizer.setExecutor(executor);
+        DiscourseSession session = new DiscourseSession();
+
+        // Keep the executor busy, so that the requests stay queued
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        CompletableFuture<List<String>> first = realizer.getTextsAsync(pred1, createContext(), session);
+        CompletableFuture<List<String>> second = realizer.getTextsAsync(pred2, createContext(), session);
+        collector.checkThat(first.cancel(false), equalTo(true));
+        blocked.countDown();
+
+        // Frank was not mentioned by the skipped request
+        collector.checkThat(second.get(60, TimeUnit.SECONDS).get(0), equalTo("What's up with Frank?"));
+        collector.checkThat(first.isCancelled(), equalTo(true));
+        executor.shutdown();
+    }
+
+    /**
+     * Test that a request rejected by the executor fails, and that the next request in the session runs.
+     */
+    @Test
+    public void rejectedRequestTest() throws Exception {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean rejecting = new AtomicBoolean(false);
+        realizer.setExecutor(task -> {
+            if (rejecting.get())
+                throw new RejectedExecutionException();
+            executor.execute(task);
+        });
+        DiscourseSession session = new DiscourseSession();
+
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // The second request is handed to the executor when the first has finished, which is when it rejects it
+        CompletableFuture<List<String>> first = realizer.getTextsAsync(pred1, createContext(), session);
+        CompletableFuture<List<String>> second = realizer.getTextsAsync(pred2, createContext(), session);
+        rejecting.set(true);
+        blocked.countDown();
+
+        try {
+            second.get(60, TimeUnit.SECONDS);
+            collector.addError(new AssertionError("The rejected request was realised"));
+        } catch (ExecutionException e) {
+            collector.checkThat(e.getCause() instanceof RejectedExecutionException, equalTo(true));
+        }
+        rejecting.set(false);
+
+        CompletableFuture<List<String>> third = realizer.getTextsAsync(pred2, createContext(), session);
+        collector.checkThat(first.get(60, TimeUnit.SECONDS).get(0), equalTo("Did you hear about Frank?"));
+        collector.checkThat(third.get(60, TimeUnit.SECONDS).get(0), equalTo("What's up with him?"));
+        executor.shutdown();
+    }
+}
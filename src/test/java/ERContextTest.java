@@ -0,0 +1,94 @@
+import expreal.erElements.*;
+import expreal.erRealizer.ExpressiveActionRealizer;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Vector;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+
+/**
+ * These tests test the lookups of the context, and that a context based on another context does not change it.
+ */
+public class ERContextTest extends TestHelper {
+
+    private ERPerson paul = new ERPerson("paul", ERGender.MASCULINE);
+    private ERPerson lili = new ERPerson("lili", ERGender.FEMININE);
+
+    private ERContext createContext() {
+        ERContext context = new ERContext();
+        context.addPerson(paul);
+        context.addPerson(lili);
+        context.setSpeaker(paul);
+        context.setListener(lili);
+        context.addArgument(new ERArgument("argument", "Chair"));
+        return context;
+    }
+
+    /**
+     * Test that a child context sees its parent, but the parent does not see the child.
+     */
+    @Test
+    public void childContextTest() {
+        ERContext parent = createContext();
+        ERContext child = new ERContext(parent);
+
+        child.addArgument(new ERArgument("argument", "Table"));
+        child.addArgument(new ERArgument("task", "SitOn"));
+        child.setSpeaker(lili);
+
+        collector.checkThat(child.getArgument("argument").getValue(), equalTo("Table"));
+        collector.checkThat(child.getArgument("task").getValue(), equalTo("SitOn"));
+        collector.checkThat(child.getPerson("paul"), sameInstance(paul));
+        collector.checkThat(child.getAllArguments().size(), equalTo(3));
+
+        collector.checkThat(parent.getArgument("argument").getValue(), equalTo("Chair"));
+        collector.checkThat(parent.getArgument("task"), nullValue());
+        collector.checkThat(parent.getAllArguments().size(), equalTo(1));
+        collector.checkThat(parent.getSpeaker(), sameInstance(paul));
+
+        child.clearArguments();
+        collector.checkThat(child.getArgument("argument"), nullValue());
+        collector.checkThat(parent.getArgument("argument").getValue(), equalTo("Chair"));
+    }
+
+    /**
+     * Test that persons are found by their realised name in any language, and by their properties.
+     */
+    @Test
+    public void personLookupTest() {
+        ERContext context = createContext();
+        HashMap<String, Float> properties = new HashMap<>();
+        properties.put("contentedness", 0.8f);
+        ERPerson john = new ERPerson("john", ERGender.MASCULINE, new String[]{"Johnny", "Jean", "Jan"}, properties);
+        context.addPerson(john);
+
+        collector.checkThat(context.getPersonByRealisedName("Johnny"), sameInstance(john));
+        collector.checkThat(context.getPersonByRealisedName("Jan"), sameInstance(john));
+        collector.checkThat(context.getPersonByRealisedName("john"), nullValue());
+        collector.checkThat(context.getObjectByKey("%john.contentedness"), sameInstance((ERObject) john));
+        collector.checkThat(context.getObjectByKey("%john.mood"), nullValue());
+        collector.checkThat(context.getObjectByKey("%paul.contentedness"), nullValue());
+    }
+
+    /**
+     * Test that realising predicates does not add their arguments to the context of the caller.
+     */
+    @Test
+    public void argumentsDoNotLeakTest() {
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        ERContext context = createContext();
+
+        Vector<ERArgument> arguments = new Vector<>();
+        arguments.add(new ERArgument("test", "dynamicargument"));
+        ERPredicate predicate = new ERPredicate("InformIntention", arguments);
+
+        for (int i = 0; i < 3; i++)
+            collector.checkThat(realizer.getTexts(predicate, context).get(0), equalTo("Please, go sit on the chair!"));
+
+        collector.checkThat(context.getAllArguments().size(), equalTo(1));
+        collector.checkThat(context.getArgument("test"), nullValue());
+    }
+}
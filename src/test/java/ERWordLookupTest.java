@@ -0,0 +1,63 @@
+import expreal.erElements.ERLanguage;
+import expreal.erElements.ERWordLookup;
+import expreal.erRealizer.LexiconRegistry;
+import org.junit.Test;
+import simplenlg.features.LexicalFeature;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.WordElement;
+import simplenlg.lexicon.Lexicon;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+/**
+ * These tests test that the word lookup gives the same words as looking them up in the lexicon.
+ */
+public class ERWordLookupTest extends TestHelper {
+
+    @Test
+    public void englishLookupTest() {
+        testLookup(ERLanguage.ENGLISH, "amuse", "yourself", "be", "is", "was", "have", "the", "a", "my", "dog", "xyzzy");
+    }
+
+    @Test
+    public void frenchLookupTest() {
+        testLookup(ERLanguage.FRENCH, "amuser", "se", "être", "est", "avoir", "le", "la", "mon", "chien", "xyzzy");
+    }
+
+    @Test
+    public void dutchLookupTest() {
+        testLookup(ERLanguage.DUTCH, "amuseren", "zich", "zijn", "is", "was", "de", "het", "mijn", "hond", "xyzzy");
+    }
+
+    /**
+     * Compare each lookup with the lexicon calls it replaces, twice, so that the second lookup uses the remembered word.
+     */
+    private void testLookup(ERLanguage language, String... tokens) {
+        Lexicon lexicon = LexiconRegistry.acquire(language);
+        try {
+            ERWordLookup lookup = new ERWordLookup(lexicon);
+            for (int i = 0; i < 2; i++) {
+                for (String token : tokens) {
+                    WordElement pronoun = lexicon.getWord(token, LexicalCategory.PRONOUN);
+                    WordElement reflexivePronoun = pronoun != null && pronoun.hasFeature(LexicalFeature.REFLEXIVE) ? pronoun : null;
+                    collector.checkThat("reflexive pronoun " + token, lookup.getReflexivePronoun(token), equalTo(reflexivePronoun));
+
+                    // A verb that is not in the lexicon is created on each lookup, so only its base form is compared
+                    collector.checkThat("verb " + token, getBaseForm(lookup.getVerb(token)),
+                            equalTo(getBaseForm(lexicon.getWord(token, LexicalCategory.VERB))));
+                    collector.checkThat("verb variant " + token, lookup.hasVerbFromVariant(token),
+                            equalTo(lexicon.hasWordFromVariant(token, LexicalCategory.VERB)));
+                    collector.checkThat("determiner " + token, lookup.isDeterminer(token),
+                            equalTo(lexicon.getWord(token).isA(LexicalCategory.DETERMINER)
+                                    || lexicon.getWordFromVariant(token).isA(LexicalCategory.DETERMINER)));
+                }
+            }
+        } finally {
+            LexiconRegistry.release(lexicon);
+        }
+    }
+
+    private static String getBaseForm(WordElement word) {
+        return word == null ? null : word.getBaseForm();
+    }
+}
@@ -0,0 +1,211 @@
+import expreal.erElements.*;
+import expreal.erRealizer.DiscourseSession;
+import expreal.erRealizer.ExpressiveActionRealizer;
+import expreal.erRealizer.LexiconImage;
+import expreal.erRealizer.LexiconRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import simplenlg.features.Feature;
+import simplenlg.features.LexicalFeature;
+import simplenlg.features.NumberAgreement;
+import simplenlg.features.Person;
+import simplenlg.framework.LexicalCategory;
+import simplenlg.framework.WordElement;
+import simplenlg.lexicon.Lexicon;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+
+/**
+ * These tests test that a lexicon loaded from its binary image answers lookups and realises texts like the XML lexicon
+ * it was written from.
+ */
+public class LexiconImageTest extends TestHelper {
+
+    private Path imageDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        imageDirectory = Files.createTempDirectory("expreal-lexicon-images");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        System.clearProperty(LexiconImage.IMAGE_DIRECTORY_PROPERTY);
+        for (File file : imageDirectory.toFile().listFiles())
+            Files.delete(file.toPath());
+        Files.delete(imageDirectory);
+    }
+
+    @Test
+    public void englishImageTest() throws Exception {
+        testImage(ERLanguage.ENGLISH, "/expreal-simplenlg-english-lexicon.xml");
+    }
+
+    @Test
+    public void frenchImageTest() throws Exception {
+        testImage(ERLanguage.FRENCH, "/expreal-simplenlg-french-lexicon.xml");
+    }
+
+    @Test
+    public void dutchImageTest() throws Exception {
+        testImage(ERLanguage.DUTCH, "/expreal-simplenlg-dutch-lexicon-8k-default.xml");
+    }
+
+    /**
+     * Write the image of a copy of a bundled lexicon, load it back and compare it to the XML lexicon.
+     * The copy has its own location, so that the lexicons already loaded by other tests are not reused.
+     */
+    private void testImage(ERLanguage language, String resource) throws Exception {
+        Path xmlFile = imageDirectory.resolve("lexicon-" + language + ".xml");
+        try (InputStream input = getClass().getResourceAsStream(resource)) {
+            Files.copy(input, xmlFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        URI xmlUri = xmlFile.toUri();
+
+        // Realise without images
+        List<String> xmlTexts = realiseTests(language, xmlUri);
+
+        // Load the lexicon from XML once to write its image, then from the image
+        System.setProperty(LexiconImage.IMAGE_DIRECTORY_PROPERTY, imageDirectory.toString());
+        LexiconRegistry.release(LexiconRegistry.acquire(language, xmlUri));
+        collector.checkThat(imageDirectory.toFile().list((directory, name) -> name.endsWith(".erlx")).length, equalTo(1));
+
+        Lexicon imageLexicon = LexiconRegistry.acquire(language, xmlUri);
+        Lexicon xmlLexicon = createXMLLexicon(language, xmlUri);
+        collector.checkThat(imageLexicon.getClass(), not(equalTo(xmlLexicon.getClass())));
+
+        String xml = new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8);
+        Set<String> variants = new TreeSet<>();
+        for (String base : getElements(xml, "base")) {
+            List<WordElement> xmlWords = xmlLexicon.getWords(base, LexicalCategory.ANY);
+            collector.checkThat("getWords " + base, describe(imageLexicon.getWords(base, LexicalCategory.ANY)), equalTo(describe(xmlWords)));
+            for (WordElement word : xmlWords) {
+                variants.add(word.getBaseForm());
+                for (String featureName : word.getAllFeatureNames())
+                    if (word.getFeature(featureName) instanceof String)
+                        variants.add((String) word.getFeature(featureName));
+            }
+        }
+        for (String variant : variants)
+            collector.checkThat("getWordsFromVariant " + variant,
+                    describe(imageLexicon.getWordsFromVariant(variant, LexicalCategory.ANY)),
+                    equalTo(describe(xmlLexicon.getWordsFromVariant(variant, LexicalCategory.ANY))));
+        for (String id : getElements(xml, "id"))
+            collector.checkThat("getWordsByID " + id, describe(imageLexicon.getWordsByID(id)), equalTo(describe(xmlLexicon.getWordsByID(id))));
+
+        // The lookups by features of the pronoun table
+        for (Person person : Person.values()) {
+            for (NumberAgreement number : NumberAgreement.values()) {
+                Map<String, Object> pronounFeatures = new HashMap<>();
+                pronounFeatures.put(Feature.NUMBER, number);
+                pronounFeatures.put(Feature.PERSON, person);
+                pronounFeatures.put(LexicalFeature.REFLEXIVE, true);
+                collector.checkThat("reflexive pronoun " + person + " " + number,
+                        describe(imageLexicon.getWord(LexicalCategory.PRONOUN, pronounFeatures)),
+                        equalTo(describe(xmlLexicon.getWord(LexicalCategory.PRONOUN, pronounFeatures))));
+            }
+            Map<String, Object> determinerFeatures = new HashMap<>();
+            determinerFeatures.put(Feature.POSSESSIVE, true);
+            determinerFeatures.put(Feature.PERSON, person);
+            collector.checkThat("possessive determiner " + person,
+                    describe(imageLexicon.getWord(LexicalCategory.DETERMINER, determinerFeatures)),
+                    equalTo(describe(xmlLexicon.getWord(LexicalCategory.DETERMINER, determinerFeatures))));
+        }
+        LexiconRegistry.release(imageLexicon);
+
+        // Realise with the image
+        collector.checkThat(realiseTests(language, xmlUri), equalTo(xmlTexts));
+    }
+
+    /**
+     * Realise every test of Tests.csv in a new session with a fixed seed.
+     */
+    private List<String> realiseTests(ERLanguage language, URI lexiconUri) throws IOException {
+        List<String> texts = new ArrayList<>();
+        try (ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", language, lexiconUri)) {
+            for (String test : getTests()) {
+                Vector<ERArgument> arguments = new Vector<>();
+                arguments.add(new ERArgument("test", test));
+                ERPredicate predicate = new ERPredicate("InformIntention", arguments);
+                texts.add(test + ": " + realizer.getTexts(predicate, createContext(), new DiscourseSession(42)));
+            }
+        }
+        return texts;
+    }
+
+    private static ERContext createContext() {
+        ERContext context = new ERContext();
+        ERPerson julia = new ERPerson("julia", ERGender.FEMININE);
+        context.addPerson(new ERPerson("frank", ERGender.MASCULINE));
+        context.addPerson(new ERPerson("lili", ERGender.FEMININE));
+        context.addPerson(new ERPerson("pete", ERGender.MASCULINE));
+        context.addPerson(julia);
+        context.setSpeaker(julia);
+        context.setListener(new ERPerson("olivia", ERGender.FEMININE));
+        return context;
+    }
+
+    private Set<String> getTests() throws IOException {
+        try (InputStream input = getClass().getResourceAsStream("/Tests.csv")) {
+            Scanner scanner = new Scanner(input, "UTF-8").useDelimiter("\\A");
+            return getMatches(scanner.hasNext() ? scanner.next() : "", Pattern.compile("^InformIntention;\\$test=([^;]+);", Pattern.MULTILINE));
+        }
+    }
+
+    private static Set<String> getElements(String xml, String element) {
+        return getMatches(xml, Pattern.compile("<" + element + ">\\s*([^<]*?)\\s*</" + element + ">"));
+    }
+
+    private static Set<String> getMatches(String text, Pattern pattern) {
+        Set<String> matches = new LinkedHashSet<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find())
+            matches.add(matcher.group(1));
+        return matches;
+    }
+
+    private static Lexicon createXMLLexicon(ERLanguage language, URI xmlUri) {
+        switch (language) {
+            case DUTCH:
+                return new simplenlg.lexicon.dutch.XMLLexicon(xmlUri);
+            case FRENCH:
+                return new simplenlg.lexicon.french.XMLLexicon(xmlUri);
+            default:
+                return new simplenlg.lexicon.english.XMLLexicon(xmlUri);
+        }
+    }
+
+    private static List<String> describe(List<WordElement> words) {
+        List<String> descriptions = new ArrayList<>();
+        if (words != null)
+            for (WordElement word : words)
+                descriptions.add(describe(word));
+        return descriptions;
+    }
+
+    /**
+     * Describe a word by its base form, category, id and features, which are what the image stores.
+     */
+    private static String describe(WordElement word) {
+        if (word == null)
+            return "null";
+        Map<String, String> features = new TreeMap<>();
+        for (String featureName : word.getAllFeatureNames())
+            features.put(featureName, String.valueOf(word.getFeature(featureName)));
+        return word.getBaseForm() + "/" + word.getCategory() + "/" + word.getId() + features;
+    }
+}
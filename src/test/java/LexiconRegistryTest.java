@@ -0,0 +1,42 @@
+import expreal.erElements.ERLanguage;
+import expreal.erRealizer.ExpressiveActionRealizer;
+import expreal.erRealizer.LexiconRegistry;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+/**
+ * These tests test that realizers of the same language share their lexicon.
+ */
+public class LexiconRegistryTest extends TestHelper {
+
+    @Test
+    public void sharedLexiconTest() {
+        int initialCount = LexiconRegistry.getReferenceCount(ERLanguage.FRENCH, null);
+
+        ExpressiveActionRealizer firstRealizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.FRENCH);
+        ExpressiveActionRealizer secondRealizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.FRENCH);
+        collector.checkThat(LexiconRegistry.getReferenceCount(ERLanguage.FRENCH, null), equalTo(initialCount + 2));
+
+        firstRealizer.close();
+        firstRealizer.close(); // closing twice only releases once
+        collector.checkThat(LexiconRegistry.getReferenceCount(ERLanguage.FRENCH, null), equalTo(initialCount + 1));
+
+        secondRealizer.close();
+        collector.checkThat(LexiconRegistry.getReferenceCount(ERLanguage.FRENCH, null), equalTo(initialCount));
+    }
+
+    /**
+     * Test that a realizer created without a language also uses the shared lexicon of the default language.
+     */
+    @Test
+    public void defaultLanguageLexiconTest() {
+        int initialCount = LexiconRegistry.getReferenceCount(ERLanguage.DEFAULT_LANGUAGE, null);
+
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv");
+        collector.checkThat(LexiconRegistry.getReferenceCount(ERLanguage.DEFAULT_LANGUAGE, null), equalTo(initialCount + 1));
+
+        realizer.close();
+        collector.checkThat(LexiconRegistry.getReferenceCount(ERLanguage.DEFAULT_LANGUAGE, null), equalTo(initialCount));
+    }
+}
@@ -1,9 +1,13 @@
 import expreal.erElements.*;
 import org.junit.Before;
 import org.junit.Test;
+import simplenlg.features.Gender;
+import simplenlg.features.NumberAgreement;
 
 import java.util.Vector;
 
+import static org.hamcrest.CoreMatchers.equalTo;
+
 /**
  * These tests test noun features, such as 'owner nouns' (possessive).
  *
@@ -274,4 +278,17 @@ public class NounFeatureTest extends TestHelper {
 
         testFrenchPredicate(predicate, context, "Ca te dirait d'aller?");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that the features appended to a noun are decoded, the last one winning when a feature is given twice.
+     */
+    @Test
+    public void featureSetTest() {
+        ERFeatureSet features = ERFeatureSet.parse("singular.f.poss.plural");
+        collector.checkThat(features.getNumber(), equalTo(NumberAgreement.PLURAL));
+        collector.checkThat(features.getGender(), equalTo(Gender.FEMININE));
+        collector.checkThat(features.isPossessive(), equalTo(true));
+        collector.checkThat(features.isCapitalise(), equalTo(false));
+        collector.checkThat(ERFeatureSet.parse(""), equalTo(ERFeatureSet.NONE));
+    }
+}
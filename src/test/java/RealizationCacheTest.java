@@ -0,0 +1,149 @@
+import expreal.erElements.*;
+import expreal.erRealizer.ExpressiveActionRealizer;
+import expreal.erRealizer.RealizationCache;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Vector;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+
+/**
+ * These tests test that realised texts are reused only when the context is the same.
+ */
+public class RealizationCacheTest extends TestHelper {
+
+    private ExpressiveActionRealizer realizer;
+    private RealizationCache cache;
+    private ERPredicate predicate;
+
+    @Before
+    public void setUp() {
+        realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        cache = new RealizationCache(16);
+        realizer.setCache(cache);
+
+        Vector<ERArgument> arguments = new Vector<>();
+        arguments.add(new ERArgument("test", "nounfeatures10"));
+        predicate = new ERPredicate("InformIntention", arguments);
+    }
+
+    private ERContext createContext(float contentedness) {
+        return createContext(contentedness, new ERPerson("julia", ERGender.FEMININE));
+    }
+
+    private ERContext createContext(float contentedness, ERPerson julia) {
+        ERContext context = new ERContext();
+        ERPerson john = new ERPerson("john", ERGender.MASCULINE);
+        john.setProperty("contentedness", contentedness);
+        context.addPerson(john);
+        context.addPerson(julia);
+        context.setSpeaker(julia);
+        context.setListener(john);
+        return context;
+    }
+
+    /**
+     * Test that the texts are reused in the same context.
+     */
+    @Test
+    public void reuseTest() {
+        collector.checkThat(realizer.getTexts(predicate, createContext(0.9f)).get(0), equalTo("John likes it."));
+        collector.checkThat(realizer.getTexts(predicate, createContext(0.9f)).get(0), equalTo("John likes it."));
+        collector.checkThat(cache.getHitCount(), equalTo(1L));
+        collector.checkThat(cache.size(), equalTo(1));
+    }
+
+    /**
+     * Test that the texts are not reused when the context selects another template.
+     */
+    @Test
+    public void changedContextTest() {
+        collector.checkThat(realizer.getTexts(predicate, createContext(0.9f)).get(0), equalTo("John likes it."));
+        collector.checkThat(realizer.getTexts(predicate, createContext(0.2f)).get(0), equalTo("John hates it."));
+        collector.checkThat(cache.getHitCount(), equalTo(0L));
+    }
+
+    /**
+     * Test that texts with grammatical blocks, which depend on the mention history, bypass the cache.
+     */
+    @Test
+    public void grammaticalTemplateTest() {
+        Vector<ERArgument> arguments = new Vector<>();
+        arguments.add(new ERArgument("test", "nounfeatures1"));
+        ERPredicate grammaticalPredicate = new ERPredicate("InformIntention", arguments);
+
+        realizer.getTexts(grammaticalPredicate, createContext(0.9f));
+        realizer.getTexts(grammaticalPredicate, createContext(0.9f));
+        collector.checkThat(cache.getHitCount(), equalTo(0L));
+        collector.checkThat(cache.getMissCount(), equalTo(0L));
+        collector.checkThat(cache.size(), equalTo(0));
+    }
+
+    private ERPredicate createPredicate(String test, String... argumentValues) {
+        Vector<ERArgument> arguments = new Vector<>();
+        arguments.add(new ERArgument("test", test));
+        for (int i = 0; i < argumentValues.length; i += 2)
+            arguments.add(new ERArgument(argumentValues[i], argumentValues[i + 1]));
+        return new ERPredicate("InformIntention", arguments);
+    }
+
+    /**
+     * Test that the texts of a template are not reused when an argument that it reads has another value.
+     */
+    @Test
+    public void changedArgumentTest() {
+        ERPredicate chair = createPredicate("dynamicargument", "argument", "Chair");
+        ERPredicate table = createPredicate("dynamicargument", "argument", "Table");
+
+        collector.checkThat(realizer.getTexts(chair, createContext(0.9f)).get(0), equalTo("Please, go sit on the chair!"));
+        collector.checkThat(realizer.getTexts(table, createContext(0.9f)).get(0), equalTo("Please, go sit on the table!"));
+        collector.checkThat(cache.getHitCount(), equalTo(0L));
+        collector.checkThat(cache.getMissCount(), equalTo(2L));
+    }
+
+    /**
+     * Test that the texts of a template are not reused when a $variable selects another entry.
+     */
+    @Test
+    public void changedVariableEntryTest() {
+        ERPredicate sitOn = createPredicate("nesteddynamicargument", "task", "SitOn", "argument", "Chair");
+        ERPredicate beQuiet = createPredicate("nesteddynamicargument", "task", "BeQuiet", "argument", "Chair");
+
+        collector.checkThat(realizer.getTexts(sitOn, createContext(0.9f)).get(0), equalTo("Please, go sit on the chair!"));
+        collector.checkThat(realizer.getTexts(beQuiet, createContext(0.9f)).get(0), equalTo("be quiet"));
+        collector.checkThat(cache.getHitCount(), equalTo(0L));
+        collector.checkThat(cache.getMissCount(), equalTo(2L));
+    }
+
+    /**
+     * Test that the texts of a template are not reused when the speaker has another gender or realised name.
+     */
+    @Test
+    public void changedSpeakerTest() {
+        ERPredicate dialog = createPredicate("switchdialog1");
+        ERContext context = createContext(0.9f);
+        ERContext otherGender = createContext(0.9f, new ERPerson("julia", ERGender.MASCULINE));
+        ERContext otherName = createContext(0.9f, new ERPerson("julia", ERGender.FEMININE, new String[]{"Jules", "Jules", "Jules"}));
+
+        collector.checkThat(realizer.getTexts(dialog, context).get(1), equalTo("Hello, Julia!"));
+        realizer.getTexts(dialog, otherGender);
+        collector.checkThat(realizer.getTexts(dialog, otherName).get(1), equalTo("Hello, Jules!"));
+        collector.checkThat(cache.getHitCount(), equalTo(0L));
+        collector.checkThat(cache.getMissCount(), equalTo(3L));
+    }
+
+    /**
+     * Test that the texts of a template are reused when only an argument that it does not read has another value.
+     */
+    @Test
+    public void unrelatedArgumentTest() {
+        ERPredicate first = createPredicate("dynamicargument", "argument", "Chair", "mood", "happy");
+        ERPredicate second = createPredicate("dynamicargument", "argument", "Chair", "mood", "sad");
+
+        collector.checkThat(realizer.getTexts(first, createContext(0.9f)).get(0), equalTo("Please, go sit on the chair!"));
+        collector.checkThat(realizer.getTexts(second, createContext(0.9f)).get(0), equalTo("Please, go sit on the chair!"));
+        collector.checkThat(cache.getHitCount(), equalTo(1L));
+        collector.checkThat(cache.getMissCount(), equalTo(1L));
+    }
+}
@@ -130,4 +130,25 @@ public class SentenceTest extends TestHelper {
         testFrenchPredicate(predicate, context, "court et Frank marche.");
         testDutchPredicate(predicate, context, "rent en Frank loopt.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that a block without a colon is not realised, and does not prevent the other texts of the file from loading.
+     */
+    @Test
+    public void missingColonTest() {
+        Vector<ERArgument> arguments = new Vector<>();
+        arguments.add(new ERArgument("test", "missingcolon"));
+        ERPredicate predicate = new ERPredicate("InformIntention", arguments);
+
+        Vector<ERArgument> otherArguments = new Vector<>();
+        otherArguments.add(new ERArgument("test", "dynamicargument"));
+        ERPredicate otherPredicate = new ERPredicate("InformIntention", otherArguments);
+
+        context.setSpeaker(frank);
+        context.setListener(paul);
+        context.addArgument(new ERArgument("argument", "Chair"));
+
+        testEnglishPredicate(predicate, context, "{subject} runs.");
+        testEnglishPredicate(otherPredicate, context, "Please, go sit on the chair!");
+    }
+}
@@ -3,11 +3,15 @@ import expreal.erElements.ERGender;
 import expreal.erElements.ERPerson;
 import expreal.erElements.ERPredicate;
 import expreal.erElements.ERContext;
+import expreal.erElements.ERLanguage;
+import expreal.erRealizer.ExpressiveActionRealizer;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Vector;
 
+import static org.hamcrest.CoreMatchers.equalTo;
+
 /**
  * These tests test the switching of dialog within predicates.
  *
@@ -112,4 +116,25 @@ public class SwitchDialogTest extends TestHelper {
         testDutchPredicate(predicate, context, expectedDutch);
     }
 
-}
\ No newline at end of file
+    /**
+     * Test that the lines of a dialog are streamed in order, with the speaker and listener switched between them.
+     */
+    @Test
+    public void streamTest() {
+        Vector<ERArgument> arguments = new Vector<>();
+        arguments.add(new ERArgument("test", "switchdialog1"));
+        ERPredicate predicate = new ERPredicate("InformIntention", arguments);
+
+        context.setSpeaker(frank);
+        context.setListener(julia);
+
+        ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+        Vector<String> streamed = new Vector<>();
+        realizer.streamTexts(predicate, context, null, streamed::add);
+
+        collector.checkThat(streamed.size(), equalTo(2));
+        collector.checkThat(streamed.get(0), equalTo("Hi, Julia!"));
+        collector.checkThat(streamed.get(1), equalTo("Hello, Frank!"));
+    }
+
+}
@@ -0,0 +1,53 @@
+import expreal.erElements.ERLanguage;
+import expreal.erRealizer.ExpressiveActionRealizer;
+import expreal.erRealizer.TemplateDependencies;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.not;
+
+/**
+ * These tests test which values of the context the entries of the authored templates depend on.
+ */
+public class TemplateDependenciesTest extends TestHelper {
+
+    private ExpressiveActionRealizer realizer = new ExpressiveActionRealizer("Tests.csv", ERLanguage.ENGLISH);
+
+    /**
+     * Test that references to other entries are followed.
+     */
+    @Test
+    public void nestedEntriesTest() {
+        TemplateDependencies dependencies = realizer.getDependencies("quiet");
+
+        collector.checkThat(dependencies.getTemplates(), hasItem("quiet1"));
+        collector.checkThat(dependencies.getTemplates(), hasItem("quiet5"));
+        collector.checkThat(dependencies.getTemplates(), not(hasItem("quiet2")));
+        collector.checkThat(dependencies.getArguments(), hasItem("quiet5"));
+        collector.checkThat(dependencies.getRoles().isEmpty(), equalTo(true));
+        collector.checkThat(dependencies.isGrammatical(), equalTo(false));
+    }
+
+    /**
+     * Test that the names in conditions are read as persons, properties and flags.
+     */
+    @Test
+    public void conditionsTest() {
+        TemplateDependencies dependencies = realizer.getDependencies("InformIntention");
+
+        collector.checkThat(dependencies.getArguments(), hasItem("test"));
+        collector.checkThat(dependencies.getProperties(), hasItem("john.contentedness"));
+        collector.checkThat(dependencies.getFlags(), hasItem("@userChoice"));
+        collector.checkThat(dependencies.getRoles(), hasItem("speaker"));
+        collector.checkThat(dependencies.isGrammatical(), equalTo(true));
+    }
+
+    /**
+     * Test that an entry that does not exist has no dependencies.
+     */
+    @Test
+    public void missingEntryTest() {
+        collector.checkThat(realizer.getDependencies("doesNotExist") == null, equalTo(true));
+    }
+}